@@ -0,0 +1,169 @@
+package top.focess.command.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Build the command index of all the classes annotated by <code>top.focess.command.CommandType</code>.
+ * <p>
+ * The index is the resource <code>META-INF/focess-command/commands</code>. Each line of it is a command, which is the binary name of the class followed by the name and the aliases of the command, split by spaces.
+ * The commands in the index can be instanced and registered by <code>top.focess.command.CommandIndex</code> without scanning the classpath.
+ */
+@SupportedAnnotationTypes(CommandIndexProcessor.COMMAND_TYPE)
+public class CommandIndexProcessor extends AbstractProcessor {
+
+    static final String COMMAND_TYPE = "top.focess.command.CommandType";
+
+    static final String COMMAND = "top.focess.command.Command";
+
+    static final String INDEX = "META-INF/focess-command/commands";
+
+    /**
+     * The lines of the index keyed by the binary names of the classes
+     */
+    private final Map<String, String> index = new TreeMap<>();
+
+    private boolean loaded;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        if (!this.loaded) {
+            this.loadIndex();
+            this.loaded = true;
+        }
+        if (roundEnv.processingOver()) {
+            this.writeIndex();
+            return false;
+        }
+        final TypeElement commandType = this.processingEnv.getElementUtils().getTypeElement(COMMAND_TYPE);
+        final TypeElement command = this.processingEnv.getElementUtils().getTypeElement(COMMAND);
+        if (commandType == null || command == null)
+            return false;
+        // the classes compiled this time are indexed again, which removes the classes no longer annotated
+        for (final Element element : roundEnv.getRootElements())
+            if (element instanceof TypeElement) {
+                final String binaryName = this.processingEnv.getElementUtils().getBinaryName((TypeElement) element).toString();
+                this.index.keySet().removeIf(name -> name.equals(binaryName) || name.startsWith(binaryName + "$"));
+            }
+        for (final Element element : roundEnv.getElementsAnnotatedWith(commandType)) {
+            if (!this.check(element, command.asType()))
+                continue;
+            final TypeElement typeElement = (TypeElement) element;
+            final StringBuilder line = new StringBuilder(this.processingEnv.getElementUtils().getBinaryName(typeElement));
+            for (final String name : this.getNames(typeElement, commandType))
+                line.append(' ').append(name);
+            this.index.put(this.processingEnv.getElementUtils().getBinaryName(typeElement).toString(), line.toString());
+        }
+        // CommandType is only processed by this processor
+        return true;
+    }
+
+    private boolean check(final Element element, final TypeMirror command) {
+        if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "CommandType must annotate a concrete class", element);
+            return false;
+        }
+        if (!this.processingEnv.getTypeUtils().isSubtype(element.asType(), command)) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "CommandType must annotate a subclass of " + COMMAND, element);
+            return false;
+        }
+        if (element.getEnclosingElement().getKind() != ElementKind.PACKAGE && !element.getModifiers().contains(Modifier.STATIC)) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "CommandType must not annotate an inner class", element);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Get the name and the aliases of the command, empty if the name is not set in the annotation
+     *
+     * @param element     the class of the command
+     * @param commandType the CommandType annotation
+     * @return the name and the aliases of the command
+     */
+    private List<String> getNames(final TypeElement element, final TypeElement commandType) {
+        final List<String> names = new ArrayList<>();
+        for (final AnnotationMirror annotationMirror : element.getAnnotationMirrors()) {
+            if (!annotationMirror.getAnnotationType().asElement().equals(commandType))
+                continue;
+            final Map<? extends ExecutableElement, ? extends AnnotationValue> values = this.processingEnv.getElementUtils().getElementValuesWithDefaults(annotationMirror);
+            for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : values.entrySet())
+                if (entry.getKey().getSimpleName().contentEquals("name"))
+                    names.add(0, (String) entry.getValue().getValue());
+                else if (entry.getKey().getSimpleName().contentEquals("aliases"))
+                    for (final Object alias : (List<?>) entry.getValue().getValue())
+                        names.add((String) ((AnnotationValue) alias).getValue());
+        }
+        if (names.isEmpty() || names.get(0).isEmpty())
+            return new ArrayList<>();
+        for (final String name : names)
+            if (name.isEmpty() || name.chars().anyMatch(Character::isWhitespace))
+                this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Command name " + name + " must not be empty or contain spaces", element);
+        return names;
+    }
+
+    /**
+     * Load the existing index so that an incremental compilation keeps the commands not compiled this time
+     */
+    private void loadIndex() {
+        try {
+            final FileObject fileObject = this.processingEnv.getFiler().getResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(fileObject.openInputStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty())
+                        continue;
+                    final String binaryName = line.split(" ", 2)[0];
+                    // the class may be removed since the last compilation
+                    if (this.processingEnv.getElementUtils().getTypeElement(binaryName.replace('$', '.')) != null)
+                        this.index.put(binaryName, line);
+                }
+            }
+        } catch (final IOException | IllegalArgumentException ignored) {
+            // there is no existing index
+        }
+    }
+
+    private void writeIndex() {
+        if (this.index.isEmpty())
+            return;
+        try {
+            final FileObject fileObject = this.processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", INDEX);
+            try (Writer writer = fileObject.openWriter()) {
+                for (final String line : this.index.values())
+                    writer.write(line + "\n");
+            }
+        } catch (final IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write the command index: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,201 @@
+package top.focess.command.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generate a <code>top.focess.command.CommandBinder</code> for each command which has methods annotated by <code>top.focess.command.CommandMethod</code>.
+ * <p>
+ * The generated binder adds an executor for each annotated method. The executor reads the typed arguments from the DataCollection without boxing where possible, and calls the method directly.
+ */
+@SupportedAnnotationTypes(CommandMethodProcessor.COMMAND_METHOD)
+public class CommandMethodProcessor extends AbstractProcessor {
+
+    static final String COMMAND_METHOD = "top.focess.command.CommandMethod";
+
+    private static final String PACKAGE = "top.focess.command.";
+
+    private static final String BINDER_SUFFIX = "_CommandBinder";
+
+    /**
+     * The getters of the DataCollection keyed by the supported parameter types
+     */
+    private static final Map<String, String[]> ARGUMENTS = new LinkedHashMap<>();
+
+    static {
+        ARGUMENTS.put("java.lang.String", new String[]{"get()", "ofString()"});
+        ARGUMENTS.put("int", new String[]{"getInt()", "ofInt()"});
+        ARGUMENTS.put("java.lang.Integer", new String[]{"getInt()", "ofInt()"});
+        ARGUMENTS.put("long", new String[]{"getLong()", "ofLong()"});
+        ARGUMENTS.put("java.lang.Long", new String[]{"getLong()", "ofLong()"});
+        ARGUMENTS.put("double", new String[]{"getDouble()", "of(" + PACKAGE + "DataConverter.DOUBLE_DATA_CONVERTER)"});
+        ARGUMENTS.put("java.lang.Double", new String[]{"getDouble()", "of(" + PACKAGE + "DataConverter.DOUBLE_DATA_CONVERTER)"});
+        ARGUMENTS.put("boolean", new String[]{"getBoolean()", "of(" + PACKAGE + "DataConverter.BOOLEAN_DATA_CONVERTER)"});
+        ARGUMENTS.put("java.lang.Boolean", new String[]{"getBoolean()", "of(" + PACKAGE + "DataConverter.BOOLEAN_DATA_CONVERTER)"});
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        final TypeElement commandMethod = this.processingEnv.getElementUtils().getTypeElement(COMMAND_METHOD);
+        if (commandMethod == null)
+            return false;
+        final Map<TypeElement, List<ExecutableElement>> commands = new LinkedHashMap<>();
+        for (final Element element : roundEnv.getElementsAnnotatedWith(commandMethod))
+            if (this.check(element))
+                commands.computeIfAbsent((TypeElement) element.getEnclosingElement(), k -> new ArrayList<>()).add((ExecutableElement) element);
+        for (final Map.Entry<TypeElement, List<ExecutableElement>> entry : commands.entrySet())
+            this.generate(entry.getKey(), entry.getValue(), commandMethod);
+        // CommandMethod is only processed by this processor
+        return true;
+    }
+
+    private boolean check(final Element element) {
+        final Element enclosing = element.getEnclosingElement();
+        final TypeElement command = this.processingEnv.getElementUtils().getTypeElement(PACKAGE + "Command");
+        if (element.getKind() != ElementKind.METHOD || enclosing.getKind() != ElementKind.CLASS || !this.processingEnv.getTypeUtils().isSubtype(enclosing.asType(), command.asType())) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "CommandMethod must annotate a method of a subclass of " + PACKAGE + "Command", element);
+            return false;
+        }
+        if (element.getModifiers().contains(Modifier.PRIVATE) || element.getModifiers().contains(Modifier.STATIC)) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "CommandMethod must annotate a non-private instance method", element);
+            return false;
+        }
+        final TypeMirror returnType = ((ExecutableElement) element).getReturnType();
+        if (returnType.getKind() != TypeKind.VOID && !returnType.toString().equals(PACKAGE + "CommandResult")) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "CommandMethod must return CommandResult or void", element);
+            return false;
+        }
+        boolean valid = true;
+        for (final VariableElement parameter : ((ExecutableElement) element).getParameters())
+            if (this.getKind(parameter.asType()) == null) {
+                this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Parameter type " + parameter.asType() + " is not supported by CommandMethod", parameter);
+                valid = false;
+            }
+        return valid;
+    }
+
+    /**
+     * Get the kind of the parameter type
+     *
+     * @param type the parameter type
+     * @return "sender" for a CommandSender, "ioHandler" for an IOHandler, the type name for an argument, null if it is not supported
+     */
+    private String getKind(final TypeMirror type) {
+        final TypeMirror sender = this.processingEnv.getElementUtils().getTypeElement(PACKAGE + "CommandSender").asType();
+        final TypeMirror ioHandler = this.processingEnv.getElementUtils().getTypeElement(PACKAGE + "IOHandler").asType();
+        if (type.getKind() == TypeKind.DECLARED && this.processingEnv.getTypeUtils().isSubtype(type, sender))
+            return "sender";
+        if (type.getKind() == TypeKind.DECLARED && this.processingEnv.getTypeUtils().isSameType(type, ioHandler))
+            return "ioHandler";
+        final String name = this.processingEnv.getTypeUtils().erasure(type).toString();
+        return ARGUMENTS.containsKey(name) ? name : null;
+    }
+
+    private void generate(final TypeElement command, final List<ExecutableElement> methods, final TypeElement commandMethod) {
+        final PackageElement packageElement = this.processingEnv.getElementUtils().getPackageOf(command);
+        final String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        final String binaryName = this.processingEnv.getElementUtils().getBinaryName(command).toString();
+        final String simpleName = (packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1)) + BINDER_SUFFIX;
+        final String commandName = command.getQualifiedName().toString();
+        final StringBuilder source = new StringBuilder();
+        if (!packageName.isEmpty())
+            source.append("package ").append(packageName).append(";\n\n");
+        source.append("/**\n * Generated by ").append(this.getClass().getName()).append(", do not edit.\n */\n");
+        source.append("public final class ").append(simpleName).append(" implements ").append(PACKAGE).append("CommandBinder<").append(commandName).append("> {\n\n");
+        source.append("    @Override\n    public void bind(final ").append(commandName).append(" command) {\n");
+        for (final ExecutableElement method : methods)
+            this.generate(source, method, commandMethod);
+        source.append("    }\n}\n");
+        try {
+            final JavaFileObject file = this.processingEnv.getFiler().createSourceFile((packageName.isEmpty() ? "" : packageName + ".") + simpleName, command);
+            try (Writer writer = file.openWriter()) {
+                writer.write(source.toString());
+            }
+        } catch (final IOException e) {
+            this.processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Cannot write the CommandBinder: " + e.getMessage(), command);
+        }
+    }
+
+    private void generate(final StringBuilder source, final ExecutableElement method, final TypeElement commandMethod) {
+        final List<String> literals = new ArrayList<>();
+        String permission = "MEMBER";
+        for (final AnnotationMirror annotationMirror : method.getAnnotationMirrors()) {
+            if (!annotationMirror.getAnnotationType().asElement().equals(commandMethod))
+                continue;
+            for (final Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry : this.processingEnv.getElementUtils().getElementValuesWithDefaults(annotationMirror).entrySet())
+                if (entry.getKey().getSimpleName().contentEquals("value"))
+                    for (final Object literal : (List<?>) entry.getValue().getValue())
+                        literals.add((String) ((AnnotationValue) literal).getValue());
+                else if (entry.getKey().getSimpleName().contentEquals("permission"))
+                    permission = ((VariableElement) entry.getValue().getValue()).getSimpleName().toString();
+        }
+        final List<String> arguments = new ArrayList<>();
+        for (final String literal : literals)
+            arguments.add(PACKAGE + "CommandArgument.of(\"" + escape(literal) + "\")");
+        final StringBuilder body = new StringBuilder();
+        final List<String> parameters = new ArrayList<>();
+        int index = 0;
+        for (final VariableElement parameter : method.getParameters()) {
+            final String kind = this.getKind(parameter.asType());
+            final String type = this.processingEnv.getTypeUtils().erasure(parameter.asType()).toString();
+            final String name = "arg" + index++;
+            if (kind.equals("sender")) {
+                if (type.equals(PACKAGE + "CommandSender"))
+                    body.append("            final ").append(type).append(' ').append(name).append(" = sender;\n");
+                else {
+                    body.append("            if (!(sender instanceof ").append(type).append("))\n                return ").append(PACKAGE).append("CommandResult.REFUSE;\n");
+                    body.append("            final ").append(type).append(' ').append(name).append(" = (").append(type).append(") sender;\n");
+                }
+            } else if (kind.equals("ioHandler"))
+                body.append("            final ").append(type).append(' ').append(name).append(" = ioHandler;\n");
+            else {
+                final String[] argument = ARGUMENTS.get(kind);
+                body.append("            final ").append(type).append(' ').append(name).append(" = dataCollection.").append(argument[0]).append(";\n");
+                arguments.add(PACKAGE + "CommandArgument." + argument[1]);
+            }
+            parameters.add(name);
+        }
+        final String call = "command." + method.getSimpleName() + "(" + String.join(", ", parameters) + ")";
+        if (method.getReturnType().getKind() == TypeKind.VOID)
+            body.append("            ").append(call).append(";\n            return ").append(PACKAGE).append("CommandResult.ALLOW;\n");
+        else body.append("            return ").append(call).append(";\n");
+        source.append("        command.addExecutor((sender, dataCollection, ioHandler) -> {\n").append(body).append("        }");
+        for (final String argument : arguments)
+            source.append(",\n                ").append(argument);
+        source.append(")");
+        if (!permission.equals("MEMBER"))
+            source.append(".setPermission(").append(PACKAGE).append("CommandPermission.").append(permission).append(")");
+        source.append(";\n");
+    }
+
+    private static String escape(final String literal) {
+        return literal.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
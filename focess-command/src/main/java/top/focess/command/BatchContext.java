@@ -0,0 +1,176 @@
+package top.focess.command;
+
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * The parsing, matching and conversions shared by the entries of the same command in a batch.
+ * <p>
+ * Each distinct command line is split only once, its arguments are matched to each executor only once, and each distinct argument is converted by a data converter only once.
+ * At most 4096 command lines and 4096 arguments of each data converter are kept, and the command lines are no longer shared if less than half of the first 1024 entries share them,
+ * so that a batch of mostly distinct command lines is executed like a loop of executions.
+ * A context is only used by one thread at a time. The data converters are expected to be pure, so that a converted value can be shared by the entries.
+ *
+ * @see CommandRegistry#executeBatch(List, java.util.concurrent.ForkJoinPool)
+ */
+final class BatchContext {
+
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private static final int MAX_SIZE = 4096;
+
+    private static final int SAMPLE_SIZE = 1024;
+
+    /**
+     * The marker of the arguments not matching an executor
+     */
+    private static final Match NO_MATCH = new Match(null, new CommandArgument<?>[0]);
+
+    private final Map<String, Line> lines = Maps.newHashMap();
+
+    private final Map<DataConverter<?>, Map<String, Object>> conversions = new IdentityHashMap<>();
+
+    private int lookups;
+
+    private int hits;
+
+    private boolean disabled;
+
+    /**
+     * Get the parsed command line
+     *
+     * @param commandLine the command line, including the command name and the arguments split by spaces
+     * @return the parsed command line shared by the entries with the same command line, null if there are too many distinct command lines
+     */
+    @Nullable
+    Line getLine(@NotNull final String commandLine) {
+        if (this.disabled)
+            return null;
+        Line line = this.lines.get(commandLine);
+        if (line != null)
+            this.hits++;
+        if (++this.lookups == SAMPLE_SIZE && this.hits * 2 < SAMPLE_SIZE) {
+            this.disabled = true;
+            this.lines.clear();
+            this.conversions.clear();
+            return null;
+        }
+        if (line == null && this.lines.size() < MAX_SIZE) {
+            final String[] args = SPACES.split(commandLine.trim());
+            final String[] arguments = new String[args.length - 1];
+            System.arraycopy(args, 1, arguments, 0, arguments.length);
+            line = new Line(this, arguments);
+            this.lines.put(commandLine, line);
+        }
+        return line;
+    }
+
+    @Nullable
+    private Object convert(@NotNull final DataConverter<?> dataConverter, @NotNull final String arg) {
+        final Map<String, Object> conversions = this.conversions.computeIfAbsent(dataConverter, k -> Maps.newHashMap());
+        Object value = conversions.get(arg);
+        if (value == null && !conversions.containsKey(arg)) {
+            value = dataConverter.convert(arg);
+            if (conversions.size() < MAX_SIZE)
+                conversions.put(arg, value);
+        }
+        return value;
+    }
+
+    /**
+     * A command line of a batch with the matches of its arguments to the executors
+     */
+    static final class Line {
+
+        private final BatchContext batch;
+
+        private final String[] args;
+
+        private final Map<Command.Executor, Match> matches = new IdentityHashMap<>();
+
+        private Line(@NotNull final BatchContext batch, @NotNull final String[] args) {
+            this.batch = batch;
+            this.args = args;
+        }
+
+        /**
+         * Get a copy of the arguments, so that an executor changing its arguments does not change the other entries
+         *
+         * @return the arguments of the command line
+         */
+        @NotNull
+        String[] getArgs() {
+            return this.args.clone();
+        }
+
+        /**
+         * Get the match of the arguments to the executor, the arguments are converted when the match is put into a data collection for the first time
+         *
+         * @param executor the executor
+         * @return the match of the arguments, null if the arguments do not match the executor
+         */
+        @Nullable
+        Match match(@NotNull final Command.Executor executor) {
+            Match match = this.matches.get(executor);
+            if (match == null) {
+                final CommandArgument<?>[] matched = executor.match(this.args);
+                match = matched == null ? NO_MATCH : new Match(this, matched);
+                this.matches.put(executor, match);
+            }
+            return match == NO_MATCH ? null : match;
+        }
+    }
+
+    /**
+     * The command argument and the converted value of each argument matching an executor
+     */
+    static final class Match {
+
+        private final Line line;
+
+        private final CommandArgument<?>[] commandArguments;
+
+        /**
+         * The converted values, null until the arguments are converted
+         */
+        @Nullable
+        private Object[] values;
+
+        private Match(final Line line, @NotNull final CommandArgument<?>[] commandArguments) {
+            this.line = line;
+            this.commandArguments = commandArguments;
+        }
+
+        @NotNull
+        CommandArgument<?>[] getCommandArguments() {
+            return this.commandArguments;
+        }
+
+        /**
+         * Put the converted values into the data collection, converting the arguments if they are not converted
+         *
+         * @param dataCollection the data collection of the execution
+         */
+        @SuppressWarnings("unchecked")
+        void put(@NotNull final DataCollection dataCollection) {
+            Object[] values = this.values;
+            if (values == null) {
+                values = new Object[this.commandArguments.length];
+                // the arguments are accepted by the matching, and a default argument has no data
+                for (int i = 0; i < this.commandArguments.length; i++)
+                    if (!this.commandArguments[i].isDefault())
+                        values[i] = this.line.batch.convert(this.commandArguments[i].getDataConverter(), this.line.args[i]);
+                this.values = values;
+            }
+            for (int i = 0; i < this.commandArguments.length; i++)
+                if (!this.commandArguments[i].isDefault())
+                    ((DataConverter<Object>) this.commandArguments[i].getDataConverter()).connect(dataCollection, values[i]);
+        }
+    }
+}
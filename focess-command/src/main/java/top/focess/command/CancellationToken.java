@@ -0,0 +1,138 @@
+package top.focess.command;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents the deadline of an execution with a timeout. The executor can get the token of the current execution by {@link #current()} and stop as soon as it is cancelled.
+ * <p>
+ * When the deadline is reached, the token is cancelled and the thread of the execution is interrupted, which also stops {@link IOHandler#input()} waiting for the input String.
+ * Then the execution returns {@link CommandResult#TIMEOUT}.
+ */
+public final class CancellationToken {
+
+    private static final ThreadLocal<CancellationToken> CURRENT = new ThreadLocal<>();
+
+    @Nullable
+    private final CancellationToken parent;
+
+    private final Thread thread;
+
+    private final long deadline;
+
+    private final ScheduledFuture<?> future;
+
+    private volatile boolean cancelled;
+
+    private boolean finished;
+
+    private CancellationToken(@Nullable final CancellationToken parent, final long deadline) {
+        this.parent = parent;
+        this.thread = Thread.currentThread();
+        this.deadline = deadline;
+        this.future = Timer.TIMER.schedule(this::cancel, deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the token of the execution running in the current thread
+     *
+     * @return the token of the current execution, null if the current execution has no timeout
+     */
+    @Nullable
+    public static CancellationToken current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Start an execution with the timeout in the current thread. The deadline is not later than the deadline of the outer execution.
+     *
+     * @param timeout the timeout in nanoseconds
+     * @return the token of the execution
+     */
+    @NotNull
+    static CancellationToken start(final long timeout) {
+        final CancellationToken parent = CURRENT.get();
+        long deadline = System.nanoTime() + timeout;
+        if (parent != null && parent.deadline - deadline < 0)
+            deadline = parent.deadline;
+        final CancellationToken token = new CancellationToken(parent, deadline);
+        CURRENT.set(token);
+        return token;
+    }
+
+    /**
+     * Finish the execution in the current thread, and clear the interruption caused by this token
+     *
+     * @return true if the execution was cancelled before it finished, false otherwise
+     */
+    boolean finish() {
+        synchronized (this) {
+            this.finished = true;
+        }
+        this.future.cancel(false);
+        if (this.parent == null)
+            CURRENT.remove();
+        else CURRENT.set(this.parent);
+        // the interruption of the outer execution is kept
+        if (this.cancelled && (this.parent == null || !this.parent.cancelled))
+            Thread.interrupted();
+        return this.cancelled;
+    }
+
+    /**
+     * Cancel the execution and interrupt its thread
+     */
+    public synchronized void cancel() {
+        if (this.finished || this.cancelled)
+            return;
+        this.cancelled = true;
+        this.thread.interrupt();
+    }
+
+    /**
+     * Indicate whether the execution is cancelled
+     *
+     * @return true if the execution is cancelled, false otherwise
+     */
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Throw an exception if the execution is cancelled
+     *
+     * @throws CancellationException if the execution is cancelled
+     */
+    public void throwIfCancelled() {
+        if (this.cancelled)
+            throw new CancellationException("Execution is cancelled");
+    }
+
+    /**
+     * Get the remaining time before the deadline
+     *
+     * @param unit the time unit
+     * @return the remaining time, 0 if the deadline is reached
+     */
+    public long getRemaining(@NotNull final TimeUnit unit) {
+        return unit.convert(Math.max(0, this.deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    }
+
+    private static final class Timer {
+
+        private static final ScheduledThreadPoolExecutor TIMER = new ScheduledThreadPoolExecutor(1, runnable -> {
+            final Thread thread = new Thread(runnable, "CancellationToken-Timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        static {
+            TIMER.setRemoveOnCancelPolicy(true);
+        }
+    }
+}
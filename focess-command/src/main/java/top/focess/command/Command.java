@@ -0,0 +1,1227 @@
+package top.focess.command;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.UnmodifiableView;
+import top.focess.command.audit.AuditLog;
+import top.focess.command.limit.AdaptiveLimiter;
+import top.focess.command.limit.Bulkhead;
+import top.focess.command.limit.Cooldown;
+import top.focess.command.limit.RateLimiter;
+import top.focess.command.replay.TrafficRecorder;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Represent a Plugin class that can execute. Just like we use the terminal, we could use it to executing some commands. This is an important way to interact with FocessQQ Bot.
+ * You should declare {@link CommandType} to this class ,or you should register it with your plugin manually.
+ */
+public abstract class Command {
+
+
+    private final List<Executor> executors = Lists.newCopyOnWriteArrayList();
+
+    /**
+     * The rendered usage chunks cached by the usage cache key
+     */
+    private final Map<Object, List<String>> usageCache = Maps.newConcurrentMap();
+
+    /**
+     * The name of the command
+     */
+    private final String name;
+    /**
+     * The aliases of the command
+     */
+    private final List<String> aliases;
+
+    /**
+     * The registry the command is registered in, null if the command is not registered
+     */
+    @Nullable
+    private volatile CommandRegistry registry;
+
+    /**
+     * The MiraiPermission of the command
+     */
+    private CommandPermission permission;
+
+    /**
+     * The executor check predicate
+     */
+    private Predicate<CommandSender> executorPermission;
+
+    /**
+     * The usage cache key getter, null if the usage cache is disabled
+     */
+    @Nullable
+    private volatile Function<CommandSender, Object> usageCacheKey;
+
+    private final Object initializeLock = new Object();
+
+    /**
+     * Indicate whether the command is initialized or not
+     */
+    private volatile boolean initialized;
+
+    /**
+     * The exception thrown by {@link #init()}, null if it is not thrown
+     */
+    @Nullable
+    private CommandLoadException initializeException;
+
+    /**
+     * The rate limiter of the command, null if the command is not rate limited
+     */
+    @Nullable
+    private RateLimiter rateLimiter;
+
+    /**
+     * The timeout of the executions in nanoseconds, 0 if there is no timeout
+     */
+    private long timeout;
+
+    /**
+     * The bulkhead of the command, null if the concurrent executions are not limited
+     */
+    @Nullable
+    private Bulkhead bulkhead;
+
+    /**
+     * Instance a <code>Command</code> Class with special name and aliases.
+     *
+     * @param name    the name of the command
+     * @param aliases the aliases of the command
+     * @throws CommandLoadException if there is any exception thrown in the initializing process
+     */
+    public Command(@NotNull final String name, @NotNull final String... aliases) {
+        this(false, name, aliases);
+    }
+
+    /**
+     * Instance a <code>Command</code> Class with special name and aliases.
+     * A lazy command is initialized when it is executed or its usage is requested for the first time, so its permission should be set in the constructor instead of {@link #init()}.
+     *
+     * @param lazy    true if the command is initialized lazily, false if it is initialized now
+     * @param name    the name of the command
+     * @param aliases the aliases of the command
+     * @throws CommandLoadException if it is not lazy and there is any exception thrown in the initializing process
+     */
+    protected Command(final boolean lazy, @NotNull final String name, @NotNull final String... aliases) {
+        this.name = name;
+        this.aliases = Lists.newArrayList(aliases);
+        this.permission = CommandPermission.MEMBER;
+        this.executorPermission = i -> true;
+        if (!lazy)
+            this.initialize();
+    }
+
+    /**
+     * Initialize the commands in parallel, which is used to warm up the lazy commands
+     *
+     * @param commands the commands
+     * @throws CommandLoadException if there is any exception thrown in the initializing process
+     */
+    public static void initialize(@NotNull final Collection<? extends Command> commands) {
+        commands.parallelStream().forEach(Command::initialize);
+    }
+
+    /**
+     * Unregister all commands in the default registry
+     */
+    public static void unregisterAll() {
+        CommandRegistry.getDefault().unregisterAll();
+    }
+
+    /**
+     * Get all commands in the default registry
+     *
+     * @return All commands as a list
+     */
+    @NotNull
+    @UnmodifiableView
+    public static List<Command> getCommands() {
+        return CommandRegistry.getDefault().getCommands();
+    }
+
+    /**
+     * Get the registered command in the default registry by its name or alias, ignoring case
+     *
+     * @param name the name or alias of the command
+     * @return the command, null if there is no such command
+     */
+    @Nullable
+    public static Command getCommand(@NotNull final String name) {
+        return CommandRegistry.getDefault().getCommand(name);
+    }
+
+    /**
+     * Register the command in the default registry
+     *
+     * @param command the command that need to be registered
+     * @throws CommandDuplicateException if the command name already exists in the registered commands
+     * @throws IllegalStateException    if the command is not initialized or it is registered in another registry
+     */
+    public static void register(@NotNull final Command command) {
+        CommandRegistry.getDefault().register(command);
+    }
+
+    /**
+     * Initialize this command if it is not initialized. It is thread-safe and {@link #init()} is called only once.
+     * If {@link #init()} fails, the executors it added are removed and the same exception is thrown by every later call.
+     *
+     * @throws CommandLoadException if there is any exception thrown in the initializing process
+     */
+    public final void initialize() {
+        if (this.initialized)
+            return;
+        synchronized (this.initializeLock) {
+            if (this.initialized)
+                return;
+            if (this.initializeException != null)
+                throw this.initializeException;
+            try {
+                this.init();
+            } catch (final Exception e) {
+                this.executors.clear();
+                this.usageCache.clear();
+                throw this.initializeException = new CommandLoadException(this.getClass(), e);
+            }
+            this.initialized = true;
+        }
+    }
+
+    public boolean isInitialized() {
+        return this.initialized;
+    }
+
+    public boolean isRegistered() {
+        return this.registry != null;
+    }
+
+    /**
+     * Get the registry the command is registered in
+     *
+     * @return the registry, null if the command is not registered
+     */
+    @Nullable
+    public CommandRegistry getRegistry() {
+        return this.registry;
+    }
+
+    void setRegistry(@Nullable final CommandRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Unregister this command.
+     * The rate limiters, cooldowns and idempotency caches of this command and its executors are cleared, so that they no longer keep the senders and the arguments reachable.
+     */
+    public void unregister() {
+        final CommandRegistry registry = this.registry;
+        if (registry != null)
+            registry.unregister(this);
+        final RateLimiter rateLimiter = this.rateLimiter;
+        if (rateLimiter != null)
+            rateLimiter.clear();
+        for (final Executor executor : this.executors)
+            executor.clear();
+        this.executors.clear();
+        this.usageCache.clear();
+    }
+
+    @NotNull
+    public String getName() {
+        return this.name;
+    }
+
+    @NotNull
+    public List<String> getAliases() {
+        return this.aliases;
+    }
+
+    public Predicate<CommandSender> getExecutorPermission() {
+        return this.executorPermission;
+    }
+
+    public void setExecutorPermission(@NotNull final Predicate<CommandSender> executorPermission) {
+        this.executorPermission = executorPermission;
+    }
+
+    /**
+     * Add default executor to define how to execute this command.
+     *
+     * for example :
+     * <code>
+     * this.addExecutor(... ,CommandArgument.ofString("example"),CommandArgument.ofString());
+     * </code>
+     * which means that it runs when you execute the command with "example" "xxx".
+     *
+     * <code>
+     * this.addExecutor(...);
+     * </code>
+     * which means that it runs when you just execute the command without anything.
+     *
+     * @param executor         the executor to define this command
+     * @param commandArguments the defined arguments for this executor
+     * @return the Executor to define other proprieties
+     */
+    @NotNull
+    public final Executor addExecutor(@NotNull final CommandExecutor executor, @NotNull final CommandArgument<?>... commandArguments) {
+        final Executor executor1 = new Executor(executor, this.executorPermission, this, commandArguments);
+        this.executors.add(executor1);
+        this.usageCache.clear();
+        return executor1;
+    }
+
+    /**
+     * Add the executors defined by the methods annotated by {@link CommandMethod} in this command, which is used in {@link #init()}.
+     * The executors call the methods directly through the {@link CommandBinder} generated by the annotation processor, and only the binder is loaded by reflection.
+     *
+     * @throws IllegalStateException if the binder is not generated
+     */
+    @SuppressWarnings("unchecked")
+    protected final void addAnnotatedExecutors() {
+        final CommandBinder<Command> binder;
+        try {
+            binder = (CommandBinder<Command>) Class.forName(this.getClass().getName() + CommandBinder.SUFFIX, true, this.getClass().getClassLoader()).getConstructor().newInstance();
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalStateException("CommandBinder of " + this.getClass().getName() + " is not generated", e);
+        }
+        binder.bind(this);
+    }
+
+    /**
+     * Execute the command with special arguments
+     *
+     * @param sender    the executor
+     * @param args      the arguments that command spilt by spaces
+     * @param ioHandler the receiver
+     * @return the command result
+     *
+     * @throws IllegalArgumentException internal error, never expected
+     * @throws Exception the exception that occurred when executing the command
+     */
+    public final CommandResult execute(@NotNull final CommandSender sender, @NotNull final String[] args,@NotNull IOHandler ioHandler) throws Exception {
+        return this.execute(sender, args, ioHandler, null);
+    }
+
+    /**
+     * Execute the command with special arguments as an entry of a batch
+     *
+     * @param sender    the executor
+     * @param args      the arguments that command spilt by spaces
+     * @param ioHandler the receiver
+     * @param batch     the parsed command line shared by the entries with the same command line in a batch, null if it is not in a batch
+     * @return the command result
+     * @throws Exception the exception that occurred when executing the command
+     */
+    CommandResult execute(@NotNull final CommandSender sender, @NotNull final String[] args, @NotNull final IOHandler ioHandler, @Nullable final BatchContext.Line batch) throws Exception {
+        final CommandRegistry registry = this.registry;
+        final TrafficRecorder recorder = registry == null ? null : registry.getTrafficRecorder();
+        if (recorder != null)
+            recorder.record(sender, this, args);
+        final AuditLog auditLog = registry == null ? null : registry.getAuditLog();
+        if (auditLog == null)
+            return this.executeCommand(sender, args, ioHandler, batch);
+        final long startTime = System.nanoTime();
+        CommandResult result = CommandResult.REFUSE_EXCEPTION;
+        try {
+            return result = this.executeCommand(sender, args, ioHandler, batch);
+        } finally {
+            auditLog.record(sender, this, args, result, startTime);
+        }
+    }
+
+    private CommandResult executeCommand(@NotNull final CommandSender sender, @NotNull final String[] args, @NotNull final IOHandler ioHandler, @Nullable final BatchContext.Line batch) throws Exception {
+        if (!this.isRegistered())
+            return CommandResult.COMMAND_REFUSED;
+        if (!sender.hasPermission(this.getPermission()))
+            return CommandResult.COMMAND_REFUSED;
+        this.initialize();
+        if (this.rateLimiter != null && !this.rateLimiter.tryAcquire(sender))
+            return CommandResult.THROTTLED;
+        final Bulkhead bulkhead = this.bulkhead;
+        if (bulkhead == null)
+            return this.executeExecutors(sender, args, ioHandler, batch);
+        if (!bulkhead.tryAcquire())
+            return CommandResult.REJECTED;
+        try {
+            return this.executeExecutors(sender, args, ioHandler, batch);
+        } finally {
+            bulkhead.release();
+        }
+    }
+
+    private CommandResult executeExecutors(@NotNull final CommandSender sender, @NotNull final String[] args, @NotNull final IOHandler ioHandler, @Nullable final BatchContext.Line batch) throws Exception {
+        boolean flag = false;
+        CommandResult result = CommandResult.NONE;
+        final Object match = CommandEvents.beginMatch();
+        int tried = 0;
+        int index = -1;
+        for (final Executor executor : this.executors) {
+            index++;
+            if (sender.hasPermission(executor.permission)) {
+                tried++;
+                final Object conversion = CommandEvents.beginConversion();
+                final CommandArgument<?>[] matched = executor.match(args, batch);
+                if (matched == null) {
+                    CommandEvents.endConversion(conversion, this, index, args.length, false);
+                    continue;
+                }
+                final CommandRegistry registry = this.registry;
+                // the limiter is applied once an executor matches and before the arguments are converted,
+                // so that every way of executing a command is limited by the priority of the matched executor and a shed execution does not pay for the conversions
+                final AdaptiveLimiter limiter = registry == null ? null : registry.getAdaptiveLimiter();
+                final boolean admitted = limiter == null || limiter.tryAcquire(this.getPriority(executor));
+                final long startTime = limiter == null ? 0 : System.nanoTime();
+                Exception exception = null;
+                final Object execution;
+                if (!admitted) {
+                    CommandEvents.endConversion(conversion, this, index, args.length, false);
+                    CommandEvents.endMatch(match, this, tried, args.length, index);
+                    execution = CommandEvents.beginExecution();
+                    result = CommandResult.OVERLOADED;
+                } else {
+                    final DataCollection dataCollection;
+                    try {
+                        dataCollection = executor.convert(args, matched, batch);
+                    } catch (final Throwable e) {
+                        if (limiter != null)
+                            limiter.release(startTime, false);
+                        throw e;
+                    }
+                    CommandEvents.endConversion(conversion, this, index, args.length, true);
+                    CommandEvents.endMatch(match, this, tried, args.length, index);
+                    execution = CommandEvents.beginExecution();
+                    final CommandWatchdog watchdog = registry == null ? null : registry.getWatchdog();
+                    final CommandWatchdog.Execution watched = watchdog == null ? null : watchdog.start(this, index, args);
+                    // the result of a failed execution, kept if the executor throws
+                    result = CommandResult.REFUSE_EXCEPTION;
+                    try {
+                        result = executor.execute(sender, args, dataCollection, ioHandler);
+                    } catch (final Exception e) {
+                        exception = e;
+                    } finally {
+                        // the execution is always removed from the watchdog and released from the limiter, even if an Error is thrown
+                        if (watched != null)
+                            watchdog.finish(watched, result);
+                        if (limiter != null)
+                            limiter.release(startTime, result == CommandResult.TIMEOUT);
+                    }
+                }
+                CommandEvents.endExecution(execution, this, index, result);
+                for (final CommandResult r : executor.results.keySet())
+                    if ((r.getValue() & result.getValue()) != 0)
+                        executor.results.get(r).execute(result);
+                for (final CommandResult r : executor.asyncResults.keySet())
+                    if ((r.getValue() & result.getValue()) != 0)
+                        executor.asyncResults.get(r).execute(result);
+                flag = true;
+                if (exception != null)
+                    throw exception;
+                break;
+            }
+        }
+        if (!flag)
+            CommandEvents.endMatch(match, this, tried, args.length, -1);
+        if (this.executorPermission.test(sender)) {
+            if (!flag) {
+                this.infoUsage(sender, ioHandler);
+                return CommandResult.ARGS_NOT_EXECUTED;
+            } else if (result == CommandResult.ARGS) {
+                this.infoUsage(sender, ioHandler);
+                return CommandResult.ARGS;
+            }
+        }
+        return result;
+    }
+
+    @NotNull
+    public CommandPermission getPermission() {
+        return this.permission;
+    }
+
+    /**
+     * Set the default permission
+     *
+     * @param permission the target permission the command need
+     */
+    public void setPermission(final CommandPermission permission) {
+        this.permission = permission;
+    }
+
+    /**
+     * Get the priority of executing this command with the arguments, which is the priority of the first executor matching the arguments.
+     * The priority of an executor is its explicit priority, or the higher one of its permission and the permission of this command.
+     *
+     * @param sender the executor
+     * @param args   the arguments that command spilt by spaces
+     * @return the priority, the permission of this command if there is no executor matching the arguments
+     * @see Executor#setPriority(CommandPermission)
+     */
+    @NotNull
+    public CommandPermission getPriority(@NotNull final CommandSender sender, @NotNull final String[] args) {
+        this.initialize();
+        for (final Executor executor : this.executors)
+            if (sender.hasPermission(executor.permission) && executor.accept(args))
+                return this.getPriority(executor);
+        return this.permission;
+    }
+
+    /**
+     * Get the priority of executing this command by the sender without matching the arguments, which is the highest priority of the executors the sender can use.
+     * It does not initialize this command, and the priority of a command which is not initialized is the permission of this command.
+     *
+     * @param sender the executor
+     * @return the priority
+     * @see Executor#setPriority(CommandPermission)
+     */
+    @NotNull
+    public CommandPermission getPriority(@NotNull final CommandSender sender) {
+        CommandPermission priority = this.permission;
+        if (!this.initialized)
+            return priority;
+        for (final Executor executor : this.executors)
+            if (sender.hasPermission(executor.permission)) {
+                final CommandPermission executorPriority = this.getPriority(executor);
+                if (executorPriority.getPriority() > priority.getPriority())
+                    priority = executorPriority;
+            }
+        return priority;
+    }
+
+    @NotNull
+    private CommandPermission getPriority(@NotNull final Executor executor) {
+        if (executor.priority != null)
+            return executor.priority;
+        return executor.permission.hasPermission(this.permission) ? executor.permission : this.permission;
+    }
+
+    @Nullable
+    public RateLimiter getRateLimiter() {
+        return this.rateLimiter;
+    }
+
+    /**
+     * Set the rate limiter of the command. The command returns {@link CommandResult#THROTTLED} without matching any executor when the sender is throttled.
+     *
+     * @param rateLimiter the rate limiter, null to remove the rate limit
+     */
+    public void setRateLimiter(@Nullable final RateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    @Nullable
+    public Bulkhead getBulkhead() {
+        return this.bulkhead;
+    }
+
+    /**
+     * Set the bulkhead of the command. The command returns {@link CommandResult#REJECTED} without matching any executor when the bulkhead is full.
+     * The current and the peak number of the concurrent executions of the command can be queried by the bulkhead.
+     *
+     * @param bulkhead the bulkhead, null to remove the limit of the concurrent executions
+     */
+    public void setBulkhead(@Nullable final Bulkhead bulkhead) {
+        this.bulkhead = bulkhead;
+    }
+
+    /**
+     * Set the default timeout of the executors of this command. The execution is cancelled when it exceeds the timeout, and returns {@link CommandResult#TIMEOUT}.
+     *
+     * @param timeout the timeout, 0 to remove the timeout
+     * @param unit    the time unit of the timeout
+     * @see Executor#setTimeout(long, TimeUnit)
+     * @see CancellationToken
+     */
+    public void setTimeout(final long timeout, @NotNull final TimeUnit unit) {
+        this.timeout = unit.toNanos(Math.max(0, timeout));
+    }
+
+    /**
+     * Get the default timeout of the executors of this command
+     *
+     * @param unit the time unit of the timeout
+     * @return the timeout, 0 if there is no timeout
+     */
+    public long getTimeout(@NotNull final TimeUnit unit) {
+        return unit.convert(this.timeout, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Used to initialize the command (the primary goal is to define the default executors)
+     */
+    public abstract void init();
+
+    /**
+     * Used to get help information when execute this command with wrong arguments or the executor returns {@link CommandResult#ARGS_NOT_EXECUTED}
+     *
+     * Note: the default help information is generated from the arguments of the executors the sender has permission to use
+     *
+     * @param sender the executor which need to get help information
+     * @return the help information
+     * @see #generateUsage(CommandSender)
+     */
+    @NotNull
+    public List<String> usage(final CommandSender sender) {
+        return this.generateUsage(sender);
+    }
+
+    /**
+     * Generate help information from the arguments of the executors the sender has permission to use
+     *
+     * @param sender the executor which need to get help information
+     * @return the generated help information
+     */
+    @NotNull
+    public final List<String> generateUsage(final CommandSender sender) {
+        this.initialize();
+        return this.executors.stream().filter(executor -> sender.hasPermission(executor.permission)).map(Executor::getUsage).collect(Collectors.toList());
+    }
+
+    /**
+     * Enable the usage cache keyed by the permission of the sender.
+     * The rendered help information is cached until an executor is added or the command is unregistered.
+     *
+     * Note: only enable it when {@link #usage(CommandSender)} returns the same help information for the senders with the same permission
+     */
+    public void enableUsageCache() {
+        this.enableUsageCache(CommandSender::getPermission);
+    }
+
+    /**
+     * Enable the usage cache keyed by the special key of the sender.
+     * The rendered help information is cached until an executor is added or the command is unregistered.
+     *
+     * Note: only enable it when {@link #usage(CommandSender)} returns the same help information for the senders with the same key
+     *
+     * @param usageCacheKey the getter of the usage cache key, the sender is not cached if the key is null
+     */
+    public void enableUsageCache(@NotNull final Function<CommandSender, Object> usageCacheKey) {
+        this.usageCacheKey = usageCacheKey;
+        this.usageCache.clear();
+    }
+
+    /**
+     * Disable the usage cache
+     */
+    public void disableUsageCache() {
+        this.usageCacheKey = null;
+        this.usageCache.clear();
+    }
+
+    public final void infoUsage(final CommandSender sender, @NotNull IOHandler ioHandler) {
+        this.initialize();
+        final Function<CommandSender, Object> usageCacheKey = this.usageCacheKey;
+        final Object key = usageCacheKey == null ? null : usageCacheKey.apply(sender);
+        final List<String> chunks = key == null ? this.renderUsage(sender) : this.usageCache.computeIfAbsent(key, k -> this.renderUsage(sender));
+        for (final String chunk : chunks)
+            ioHandler.output(chunk);
+    }
+
+    @NotNull
+    private List<String> renderUsage(final CommandSender sender) {
+        final List<String> usage = this.usage(sender);
+        final List<String> chunks = Lists.newArrayList();
+        int pos = 0;
+        final int targetPos = 7;
+        StringBuilder stringBuilder = null;
+        while (pos != usage.size()) {
+            if (pos % targetPos == 0) {
+                if (stringBuilder != null)
+                    chunks.add(stringBuilder.toString());
+                stringBuilder = new StringBuilder(usage.get(pos));
+            } else stringBuilder.append('\n').append(usage.get(pos));
+            pos++;
+        }
+        if (stringBuilder != null)
+            chunks.add(stringBuilder.toString());
+        return Collections.unmodifiableList(chunks);
+    }
+
+    /**
+     * This class is used to help define the executor of certain command.
+     * There is some special methods used to give more details of this executor.
+     */
+    public static class Executor {
+        private final Map<CommandResult, CommandResultExecutor> results = Maps.newHashMap();
+        /**
+         * The asynchronous executors of the CommandResults, which queue the CommandResults to their dispatchers
+         */
+        private final Map<CommandResult, CommandResultExecutor> asyncResults = Maps.newHashMap();
+        private final CommandExecutor executor;
+        private final CommandArgument<?>[] commandArguments;
+        private final Command command;
+        private final int nullableCommandArguments;
+        private final String usage;
+        private CommandPermission permission = CommandPermission.MEMBER;
+        private Predicate<CommandSender> executorPermission;
+        @Nullable
+        private RateLimiter rateLimiter;
+        @Nullable
+        private Cooldown cooldown;
+        @Nullable
+        private Bulkhead bulkhead;
+        @Nullable
+        private CommandPermission priority;
+        private long timeout;
+        @Nullable
+        private volatile Cache<List<Object>, Memo> memos;
+        @Nullable
+        private volatile Map<List<Object>, CompletableFuture<Memo>> flights;
+        @Nullable
+        private volatile Function<CommandSender, Object> senderKey;
+
+        private Executor(final CommandExecutor executor, final Predicate<CommandSender> executorPermission, final Command command, final CommandArgument<?>[] commandArguments) {
+            this.executor = executor;
+            this.executorPermission = executorPermission;
+            this.command = command;
+            this.commandArguments = commandArguments;
+            this.nullableCommandArguments = (int) Arrays.stream(commandArguments).filter(CommandArgument::isNullable).count();
+            final StringBuilder stringBuilder = new StringBuilder(command.getName());
+            for (final CommandArgument<?> commandArgument : commandArguments)
+                stringBuilder.append(' ').append(commandArgument);
+            this.usage = stringBuilder.toString();
+        }
+
+        private CommandResult execute(final CommandSender sender, final String[] args, final DataCollection dataCollection, @NotNull IOHandler ioHandler) {
+            final long timeout = this.timeout > 0 ? this.timeout : this.command.timeout;
+            if (timeout <= 0)
+                return this.executeWithLimits(sender, args, dataCollection, ioHandler);
+            final CancellationToken token = CancellationToken.start(timeout);
+            CommandResult result = null;
+            RuntimeException exception = null;
+            boolean cancelled;
+            try {
+                result = this.executeWithLimits(sender, args, dataCollection, ioHandler);
+            } catch (final RuntimeException e) {
+                exception = e;
+            } finally {
+                // the token is removed even if an Error is thrown, so that it cannot affect the later executions in this thread
+                cancelled = token.finish();
+            }
+            // the exception of a cancelled execution is usually caused by the interruption
+            if (cancelled)
+                return CommandResult.TIMEOUT;
+            if (exception != null)
+                throw exception;
+            return result;
+        }
+
+        private CommandResult executeWithLimits(final CommandSender sender, final String[] args, final DataCollection dataCollection, @NotNull IOHandler ioHandler) {
+            if (!this.executorPermission.test(sender))
+                return CommandResult.REFUSE;
+            if (this.rateLimiter != null && !this.rateLimiter.tryAcquire(sender))
+                return CommandResult.THROTTLED;
+            final Bulkhead bulkhead = this.bulkhead;
+            if (bulkhead == null)
+                return this.executeWithCooldown(sender, args, dataCollection, ioHandler);
+            if (!bulkhead.tryAcquire())
+                return CommandResult.REJECTED;
+            try {
+                return this.executeWithCooldown(sender, args, dataCollection, ioHandler);
+            } finally {
+                bulkhead.release();
+            }
+        }
+
+        private CommandResult executeWithCooldown(final CommandSender sender, final String[] args, final DataCollection dataCollection, @NotNull IOHandler ioHandler) {
+            final Cooldown cooldown = this.cooldown;
+            if (cooldown == null)
+                return this.invoke(sender, args, dataCollection, ioHandler);
+            if (!cooldown.tryAcquire(sender))
+                return CommandResult.COOLDOWN;
+            CommandResult result = null;
+            try {
+                result = this.invoke(sender, args, dataCollection, ioHandler);
+                return result;
+            } finally {
+                // only a successful execution starts the cooldown
+                if (result != CommandResult.ALLOW)
+                    cooldown.reset(sender);
+            }
+        }
+
+        private CommandResult invoke(final CommandSender sender, final String[] args, final DataCollection dataCollection, @NotNull final IOHandler ioHandler) {
+            final Cache<List<Object>, Memo> memos = this.memos;
+            final Map<List<Object>, CompletableFuture<Memo>> flights = this.flights;
+            if (memos == null && flights == null)
+                return this.executor.execute(sender, dataCollection, ioHandler);
+            final Function<CommandSender, Object> senderKey = this.senderKey;
+            final List<Object> key = Arrays.asList(senderKey == null ? null : senderKey.apply(sender), Arrays.asList(args));
+            if (memos != null) {
+                final Memo memo = memos.getIfPresent(key);
+                if (memo != null)
+                    return memo.replay(ioHandler);
+            }
+            if (flights == null)
+                return this.record(key, sender, dataCollection, ioHandler).result;
+            final CompletableFuture<Memo> flight = new CompletableFuture<>();
+            final CompletableFuture<Memo> leader = flights.putIfAbsent(key, flight);
+            if (leader != null)
+                return await(leader).replay(ioHandler);
+            try {
+                final Memo memo = this.record(key, sender, dataCollection, ioHandler);
+                flight.complete(memo);
+                return memo.result;
+            } catch (final Throwable e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                flights.remove(key, flight);
+            }
+        }
+
+        /**
+         * Clear the state of the senders kept by this Executor
+         */
+        private void clear() {
+            final RateLimiter rateLimiter = this.rateLimiter;
+            if (rateLimiter != null)
+                rateLimiter.clear();
+            final Cooldown cooldown = this.cooldown;
+            if (cooldown != null)
+                cooldown.clear();
+            final Cache<List<Object>, Memo> memos = this.memos;
+            if (memos != null)
+                memos.invalidateAll();
+            final Map<List<Object>, CompletableFuture<Memo>> flights = this.flights;
+            if (flights != null)
+                flights.clear();
+        }
+
+        @NotNull
+        private Memo record(final List<Object> key, final CommandSender sender, final DataCollection dataCollection, @NotNull final IOHandler ioHandler) {
+            final RecordingIOHandler recordingIOHandler = new RecordingIOHandler(ioHandler);
+            final Memo memo = new Memo(this.executor.execute(sender, dataCollection, recordingIOHandler), recordingIOHandler.getOutputs());
+            final Cache<List<Object>, Memo> memos = this.memos;
+            // the output depends on the input if any input is read
+            if (memos != null && !recordingIOHandler.isInputUsed())
+                memos.put(key, memo);
+            return memo;
+        }
+
+        @NotNull
+        private static Memo await(@NotNull final CompletableFuture<Memo> flight) {
+            try {
+                return flight.get();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the coalesced execution", e);
+            } catch (final ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                if (e.getCause() instanceof Error)
+                    throw (Error) e.getCause();
+                throw new IllegalStateException(e.getCause());
+            }
+        }
+
+        /**
+         * Set the executor Permission
+         * (Only if the CommandSender has the command that this executor belongs to and this executor's permissions, this executor runs)
+         *
+         * @param permission the executor Mirai Permission
+         * @return the Executor itself
+         */
+        @NotNull
+        public Executor setPermission(@NotNull final CommandPermission permission) {
+            this.permission = permission;
+            this.command.usageCache.clear();
+            return this;
+        }
+
+
+        /**
+         * Set the explicit priority of this Executor, which is used to schedule the executions under load
+         *
+         * @param priority the priority, null to use the higher one of the permission of this Executor and the permission of the command
+         * @return the Executor itself
+         * @see Command#getPriority(CommandSender)
+         */
+        @NotNull
+        public Executor setPriority(@Nullable final CommandPermission priority) {
+            this.priority = priority;
+            return this;
+        }
+
+        @Nullable
+        public CommandPermission getPriority() {
+            return this.priority;
+        }
+
+        /**
+         * Set the timeout of this Executor, which overrides the default timeout of the command.
+         * The execution is cancelled when it exceeds the timeout: its {@link CancellationToken} is cancelled and its thread is interrupted, and it returns {@link CommandResult#TIMEOUT}.
+         *
+         * @param timeout the timeout, 0 to use the default timeout of the command
+         * @param unit    the time unit of the timeout
+         * @return the Executor itself
+         */
+        @NotNull
+        public Executor setTimeout(final long timeout, @NotNull final TimeUnit unit) {
+            this.timeout = unit.toNanos(Math.max(0, timeout));
+            return this;
+        }
+
+        /**
+         * Set the rate limiter of this Executor. This Executor returns {@link CommandResult#THROTTLED} when the sender is throttled.
+         *
+         * @param rateLimiter the rate limiter, null to remove the rate limit
+         * @return the Executor itself
+         */
+        @NotNull
+        public Executor setRateLimiter(@Nullable final RateLimiter rateLimiter) {
+            this.rateLimiter = rateLimiter;
+            return this;
+        }
+
+        /**
+         * Set the bulkhead of this Executor. This Executor returns {@link CommandResult#REJECTED} when the bulkhead is full.
+         *
+         * @param bulkhead the bulkhead, null to remove the limit of the concurrent executions
+         * @return the Executor itself
+         */
+        @NotNull
+        public Executor setBulkhead(@Nullable final Bulkhead bulkhead) {
+            this.bulkhead = bulkhead;
+            return this;
+        }
+
+        @Nullable
+        public Bulkhead getBulkhead() {
+            return this.bulkhead;
+        }
+
+        /**
+         * Set the cooldown of this Executor. The cooldown of a sender starts when this Executor returns {@link CommandResult#ALLOW},
+         * and this Executor returns {@link CommandResult#COOLDOWN} when the sender is cooling down.
+         *
+         * @param duration the cooldown duration
+         * @param unit     the time unit of the duration
+         * @return the Executor itself
+         */
+        @NotNull
+        public Executor setCooldown(final long duration, @NotNull final TimeUnit unit) {
+            return this.setCooldown(new Cooldown(duration, unit));
+        }
+
+        /**
+         * Set the cooldown of this Executor. The cooldown of a sender starts when this Executor returns {@link CommandResult#ALLOW},
+         * and this Executor returns {@link CommandResult#COOLDOWN} when the sender is cooling down.
+         *
+         * @param cooldown the cooldown, null to remove the cooldown
+         * @return the Executor itself
+         */
+        @NotNull
+        public Executor setCooldown(@Nullable final Cooldown cooldown) {
+            this.cooldown = cooldown;
+            return this;
+        }
+
+        /**
+         * Get the cooldown of this Executor, which can be used to query the remaining cooldown of a sender
+         *
+         * @return the cooldown of this Executor, null if there is no cooldown
+         */
+        @Nullable
+        public Cooldown getCooldown() {
+            return this.cooldown;
+        }
+
+        /**
+         * Mark this Executor as idempotent, the CommandResult and the output of an execution are cached for the ttl by its arguments and the sender key set before.
+         * At most 1024 executions are cached.
+         *
+         * @param ttl  the time to live of a cached execution, 0 to disable the cache
+         * @param unit the time unit of the ttl
+         * @return the Executor itself
+         * @see #setIdempotent(long, TimeUnit, long, Function)
+         */
+        @NotNull
+        public Executor setIdempotent(final long ttl, @NotNull final TimeUnit unit) {
+            return this.setIdempotent(ttl, unit, 1024, this.senderKey);
+        }
+
+        /**
+         * Mark this Executor as idempotent, the CommandResult and the output of an execution are cached by its arguments and the sender key, and replayed to the receiver in the ttl.
+         * The execution which reads any input or throws an exception is not cached.
+         *
+         * Note: only mark it when the output only depends on the arguments and the sender key
+         *
+         * @param ttl         the time to live of a cached execution, 0 to disable the cache
+         * @param unit        the time unit of the ttl
+         * @param maximumSize the max number of the cached executions
+         * @param senderKey   the key of the sender, null if the output does not depend on the sender
+         * @return the Executor itself
+         */
+        @NotNull
+        public Executor setIdempotent(final long ttl, @NotNull final TimeUnit unit, final long maximumSize, @Nullable final Function<CommandSender, Object> senderKey) {
+            this.senderKey = senderKey;
+            this.memos = ttl <= 0 ? null : CacheBuilder.newBuilder().maximumSize(maximumSize).expireAfterWrite(ttl, unit).build();
+            return this;
+        }
+
+        /**
+         * Enable or disable the coalescing of this Executor. The concurrent executions with the same arguments share a single execution,
+         * and the CommandResult and the output of it are passed to all the receivers.
+         *
+         * Note: only enable it when the output only depends on the arguments and the execution does not read any input
+         *
+         * @param coalescing true to enable the coalescing, false to disable it
+         * @return the Executor itself
+         * @see #setCoalescing(boolean, Function)
+         */
+        @NotNull
+        public Executor setCoalescing(final boolean coalescing) {
+            return this.setCoalescing(coalescing, this.senderKey);
+        }
+
+        /**
+         * Enable or disable the coalescing of this Executor. The concurrent executions with the same arguments and the same sender key share a single execution,
+         * and the CommandResult and the output of it are passed to all the receivers.
+         * The sender key is shared with {@link #setIdempotent(long, TimeUnit, long, Function)}.
+         *
+         * @param coalescing true to enable the coalescing, false to disable it
+         * @param senderKey  the key of the sender, null if the output does not depend on the sender
+         * @return the Executor itself
+         */
+        @NotNull
+        public Executor setCoalescing(final boolean coalescing, @Nullable final Function<CommandSender, Object> senderKey) {
+            this.senderKey = senderKey;
+            this.flights = coalescing ? Maps.newConcurrentMap() : null;
+            return this;
+        }
+
+        /**
+         * Discard all the cached executions of this Executor
+         */
+        public void invalidateIdempotentCache() {
+            final Cache<List<Object>, Memo> memos = this.memos;
+            if (memos != null)
+                memos.invalidateAll();
+        }
+
+        /**
+         * Set the executor of the special CommandResult after executing this Executor
+         *
+         * @param result   the target CommandResult
+         * @param executor the executor of the special CommandResult
+         * @return the Executor itself
+         */
+        @NotNull
+        public Executor addCommandResultExecutor(@NotNull final CommandResult result, @NotNull final CommandResultExecutor executor) {
+            this.results.put(result, executor);
+            return this;
+        }
+
+        /**
+         * Set the asynchronous executor of the special CommandResult after executing this Executor.
+         * It is executed in the thread of the default {@link CommandResultDispatcher}, so it does not delay the execution of the command.
+         *
+         * @param result   the target CommandResult
+         * @param executor the asynchronous executor of the special CommandResult
+         * @return the Executor itself
+         * @see #addAsyncCommandResultExecutor(CommandResult, CommandResultExecutor, CommandResultDispatcher)
+         */
+        @NotNull
+        public Executor addAsyncCommandResultExecutor(@NotNull final CommandResult result, @NotNull final CommandResultExecutor executor) {
+            return this.addAsyncCommandResultExecutor(result, executor, CommandResultDispatcher.getDefault());
+        }
+
+        /**
+         * Set the asynchronous executor of the special CommandResult after executing this Executor.
+         * It is executed in the thread of the dispatcher, so it does not delay the execution of the command.
+         *
+         * @param result     the target CommandResult
+         * @param executor   the asynchronous executor of the special CommandResult
+         * @param dispatcher the dispatcher delivering the CommandResult
+         * @return the Executor itself
+         */
+        @NotNull
+        public Executor addAsyncCommandResultExecutor(@NotNull final CommandResult result, @NotNull final CommandResultExecutor executor, @NotNull final CommandResultDispatcher dispatcher) {
+            this.asyncResults.put(result, commandResult -> dispatcher.dispatch(executor, commandResult));
+            return this;
+        }
+
+        /**
+         * Set the executor permission check for this Executor
+         * When execute this Executor, it will check {@link Command#executorPermission} and the executorPermission
+         *
+         * @param executorPermission the executor permission check for this Executor
+         * @return the Executor self
+         */
+        @NotNull
+        public Executor setExecutorPermission(@NotNull final Predicate<CommandSender> executorPermission) {
+            this.executorPermission = this.executorPermission.and(executorPermission);
+            return this;
+        }
+
+        /**
+         * Remove the executor permission check for this Executor
+         *
+         * @return the Executor self
+         */
+        @NotNull
+        public Executor removeExecutorPermission() {
+            this.executorPermission = i -> true;
+            return this;
+        }
+
+        /**
+         * Set the executor permission check for this Executor
+         * When execute this Executor, it will only check the executorPermission
+         *
+         * @param executorPermission the executor permission check for this Executor
+         * @return the Executor self
+         */
+        @NotNull
+        public Executor overrideExecutorPermission(@NotNull final Predicate<CommandSender> executorPermission) {
+            this.executorPermission = executorPermission;
+            return this;
+        }
+
+        /**
+         * Get the usage of this Executor generated from its arguments
+         *
+         * @return the usage of this Executor
+         */
+        @NotNull
+        public String getUsage() {
+            return this.usage;
+        }
+
+        /**
+         * Get the command this Executor belongs to
+         *
+         * @return the command this Executor belongs to
+         */
+        public Command getCommand() {
+            return this.command;
+        }
+
+        /**
+         * Match the arguments to the command arguments without converting them
+         *
+         * @param args  the arguments of the command
+         * @param batch the parsed command line in a batch, null if it is not in a batch
+         * @return the command argument of each argument, null if the arguments are not valid
+         */
+        @Nullable
+        private CommandArgument<?>[] match(final String[] args, @Nullable final BatchContext.Line batch) {
+            if (batch == null)
+                return this.match(args);
+            final BatchContext.Match match = batch.match(this);
+            return match == null ? null : match.getCommandArguments();
+        }
+
+        /**
+         * Convert the matched arguments
+         *
+         * @param args    the arguments of the command
+         * @param matched the command argument of each argument returned by {@link #match(String[], BatchContext.Line)}
+         * @param batch   the parsed command line in a batch, null if it is not in a batch
+         * @return the data collection of the arguments
+         * @throws IllegalArgumentException internal error, never expected
+         */
+        @NotNull
+        private DataCollection convert(final String[] args, @NotNull final CommandArgument<?>[] matched, @Nullable final BatchContext.Line batch) {
+            final CommandRegistry registry = this.command.registry;
+            final DataCollection dataCollection = new DataCollection(registry == null ? CommandRegistry.getDefault() : registry, Arrays.stream(this.commandArguments).map(CommandArgument::getDataConverter).toArray(DataConverter[]::new));
+            final BatchContext.Match match = batch == null ? null : batch.match(this);
+            if (match != null)
+                match.put(dataCollection);
+            else for (int i = 0; i < args.length; i++)
+                matched[i].put(dataCollection, args[i]);
+            dataCollection.flip();
+            return dataCollection;
+        }
+
+        /**
+         * Match the arguments to the command arguments without converting them
+         *
+         * @param args the arguments of the command
+         * @return the command argument of each argument, null if the arguments are not valid
+         */
+        @Nullable
+        CommandArgument<?>[] match(final String[] args) {
+            if (args.length > this.commandArguments.length)
+                return null;
+            if (args.length < this.commandArguments.length - this.nullableCommandArguments)
+                return null;
+            final List<CommandArgument<?>> commandArgumentList = Lists.newArrayList();
+            if (!this.dfsCheck(args, 0, 0, this.commandArguments.length - args.length, commandArgumentList))
+                return null;
+            return commandArgumentList.toArray(new CommandArgument<?>[0]);
+        }
+
+        /**
+         * Check if the arguments are valid without converting them
+         *
+         * @param args the arguments of the command
+         * @return true if the arguments are valid, false otherwise
+         */
+        private boolean accept(final String[] args) {
+            if (args.length > this.commandArguments.length)
+                return false;
+            if (args.length < this.commandArguments.length - this.nullableCommandArguments)
+                return false;
+            return this.dfsCheck(args, 0, 0, this.commandArguments.length - args.length, Lists.newArrayList());
+        }
+
+        private boolean dfsCheck(@NotNull final String[] args, final int indexOfArgs, final int index, final int nullableCommandArguments, final List<CommandArgument<?>> commandArgumentList) {
+            if (indexOfArgs == args.length)
+                return true;
+            if (this.commandArguments[index].isNullable() && nullableCommandArguments > 0) {
+                final boolean ret = this.dfsCheck(args, indexOfArgs, index + 1, nullableCommandArguments - 1, commandArgumentList);
+                if (ret)
+                    return true;
+            }
+            if (this.commandArguments[index].accept(args[indexOfArgs])) {
+                commandArgumentList.add(this.commandArguments[index]);
+                final boolean ret = this.dfsCheck(args, indexOfArgs + 1, index + 1, nullableCommandArguments, commandArgumentList);
+                if (ret)
+                    return true;
+                commandArgumentList.remove(commandArgumentList.size() - 1);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The cached execution of an idempotent Executor
+     */
+    private static final class Memo {
+
+        private final CommandResult result;
+
+        private final List<String> outputs;
+
+        private Memo(@NotNull final CommandResult result, @NotNull final List<String> outputs) {
+            this.result = result;
+            this.outputs = outputs;
+        }
+
+        @NotNull
+        private CommandResult replay(@NotNull final IOHandler ioHandler) {
+            for (final String output : this.outputs)
+                ioHandler.output(output);
+            return this.result;
+        }
+    }
+}
@@ -147,6 +147,20 @@ public class CommandArgument<V> {
         else return this.getDataConverter().accept(arg);
     }
 
+    /**
+     * Get the usage form of this CommandArgument.
+     * A known value is shown as itself, an unknown value is shown as its type in angle brackets and a nullable value is shown as its type in square brackets.
+     *
+     * @return the usage form of this CommandArgument
+     */
+    @Override
+    public String toString() {
+        if (this.isDefault())
+            return String.valueOf(this.getValue());
+        final String type = this.getDataConverter().getTargetClass().getSimpleName();
+        return this.isNullable() ? "[" + type + "]" : "<" + type + ">";
+    }
+
     /**
      * Put the value of the CommandArgument in the DataCollection
      * @param dataCollection the DataCollection
@@ -0,0 +1,27 @@
+package top.focess.command;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Represents a binder to add the executors defined by the methods annotated by {@link CommandMethod}.
+ * It is generated by the annotation processor in <code>focess-command-processor</code>, and its name is the binary name of the command class followed by {@link #SUFFIX}.
+ * <p>
+ * This is a functional interface whose functional method is {@link CommandBinder#bind(Command)}.
+ *
+ * @param <T> the type of the command
+ */
+@FunctionalInterface
+public interface CommandBinder<T extends Command> {
+
+    /**
+     * The suffix of the name of the generated binder
+     */
+    String SUFFIX = "_CommandBinder";
+
+    /**
+     * Add the executors to the command
+     *
+     * @param command the command
+     */
+    void bind(@NotNull T command);
+}
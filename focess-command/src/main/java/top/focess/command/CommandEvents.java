@@ -0,0 +1,59 @@
+package top.focess.command;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The hooks of the Java Flight Recorder events of the commands.
+ * <p>
+ * The hooks do nothing in Java 8. In Java 11 and later, they are replaced by the version in {@code META-INF/versions/11} of the multi-release jar, which emits the JFR events.
+ * A begin hook returns the event to be passed to the end hook, or null if the event is not enabled.
+ */
+final class CommandEvents {
+
+    private CommandEvents() {
+    }
+
+    static void registration(@NotNull final Command command, final boolean registered) {
+    }
+
+    @Nullable
+    static Object beginLookup() {
+        return null;
+    }
+
+    static void endLookup(@Nullable final Object event, @NotNull final String name, final boolean found) {
+    }
+
+    @Nullable
+    static Object beginMatch() {
+        return null;
+    }
+
+    static void endMatch(@Nullable final Object event, @NotNull final Command command, final int executors, final int arguments, final int executorIndex) {
+    }
+
+    @Nullable
+    static Object beginConversion() {
+        return null;
+    }
+
+    static void endConversion(@Nullable final Object event, @NotNull final Command command, final int executorIndex, final int arguments, final boolean converted) {
+    }
+
+    @Nullable
+    static Object beginExecution() {
+        return null;
+    }
+
+    static void endExecution(@Nullable final Object event, @NotNull final Command command, final int executorIndex, @NotNull final CommandResult result) {
+    }
+
+    @Nullable
+    static Object beginInput() {
+        return null;
+    }
+
+    static void endInput(@Nullable final Object event, final boolean received) {
+    }
+}
@@ -0,0 +1,120 @@
+package top.focess.command;
+
+import com.google.common.collect.Lists;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.UnmodifiableView;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Load the commands from the command index built by the annotation processor in <code>focess-command-processor</code>,
+ * so that the classes annotated by {@link CommandType} are found without scanning the classpath.
+ */
+public final class CommandIndex {
+
+    /**
+     * The location of the command index
+     */
+    public static final String LOCATION = "META-INF/focess-command/commands";
+
+    private CommandIndex() {}
+
+    /**
+     * Instance and register all the commands in the command indexes of the class loader in the default registry.
+     *
+     * @param classLoader the class loader
+     * @return the loaded commands
+     * @throws IOException              if the command indexes cannot be read
+     * @throws CommandLoadException     if any command cannot be instanced
+     * @throws CommandDuplicateException if the command name already exists in the registered commands
+     * @see #load(CommandRegistry, ClassLoader)
+     */
+    @NotNull
+    @UnmodifiableView
+    public static List<Command> load(@NotNull final ClassLoader classLoader) throws IOException {
+        return load(CommandRegistry.getDefault(), classLoader);
+    }
+
+    /**
+     * Instance and register all the commands in the command indexes of the class loader.
+     * Only the commands defined by this class loader are loaded, so the indexes of its parents are not loaded again.
+     * The commands are registered in one transaction with the class loader as their owner, so that none of them is registered if any of them cannot be,
+     * and they can be unregistered by {@link CommandRegistry#unregisterOwner(Object)} when the class loader is discarded.
+     * <p>
+     * A command class is instanced with its no-args constructor, or with its <code>(String, String...)</code> constructor and the name and aliases in its {@link CommandType}.
+     *
+     * @param registry    the registry
+     * @param classLoader the class loader
+     * @return the loaded commands
+     * @throws IOException              if the command indexes cannot be read
+     * @throws CommandLoadException     if any command cannot be instanced
+     * @throws CommandDuplicateException if the command name already exists in the registered commands or in the other loaded commands
+     */
+    @NotNull
+    @UnmodifiableView
+    public static List<Command> load(@NotNull final CommandRegistry registry, @NotNull final ClassLoader classLoader) throws IOException {
+        final List<Command> commands = Lists.newArrayList();
+        final Enumeration<URL> urls = classLoader.getResources(LOCATION);
+        while (urls.hasMoreElements())
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(urls.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty())
+                        continue;
+                    final Command command = load(classLoader, line.split(" "));
+                    if (command != null)
+                        commands.add(command);
+                }
+            }
+        // all the commands are registered in one transaction, so that a duplicate command leaves the registry unchanged
+        registry.register(commands, classLoader);
+        return Collections.unmodifiableList(commands);
+    }
+
+    private static Command load(@NotNull final ClassLoader classLoader, @NotNull final String[] entry) {
+        final Class<? extends Command> cls;
+        try {
+            cls = Class.forName(entry[0], false, classLoader).asSubclass(Command.class);
+        } catch (final ClassNotFoundException e) {
+            throw new IllegalStateException("Command " + entry[0] + " in the command index is not found", e);
+        }
+        if (cls.getClassLoader() != classLoader)
+            return null;
+        try {
+            try {
+                return newInstance(cls.getDeclaredConstructor());
+            } catch (final NoSuchMethodException e) {
+                if (entry.length == 1)
+                    throw e;
+                return newInstance(cls.getDeclaredConstructor(String.class, String[].class), entry[1], Arrays.copyOfRange(entry, 2, entry.length));
+            }
+        } catch (final CommandLoadException e) {
+            throw e;
+        } catch (final Exception e) {
+            throw new CommandLoadException(cls, e);
+        }
+    }
+
+    @NotNull
+    private static Command newInstance(@NotNull final Constructor<? extends Command> constructor, final Object... args) throws Exception {
+        constructor.setAccessible(true);
+        try {
+            return constructor.newInstance(args);
+        } catch (final InvocationTargetException e) {
+            if (e.getCause() instanceof Exception)
+                throw (Exception) e.getCause();
+            throw e;
+        }
+    }
+}
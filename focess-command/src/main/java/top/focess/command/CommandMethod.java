@@ -0,0 +1,42 @@
+package top.focess.command;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Represent this method is an executor of the command it belongs to.
+ * The annotation processor in <code>focess-command-processor</code> generates a {@link CommandBinder} for the command, which adds the executors by calling the methods directly.
+ * <p>
+ * The arguments of the executor are the literal arguments in {@link #value()} followed by the parameters of the method in order.
+ * A parameter can be a String, an int, a long, a double or a boolean (or their boxed types) argument, or it can be the {@link CommandSender} (or its subclass) and the {@link IOHandler} of the execution, which are not arguments.
+ * The method returns a {@link CommandResult}, or returns void which means {@link CommandResult#ALLOW}.
+ * <p>
+ * for example :
+ * <code>
+ * &#64;CommandMethod("give")
+ * public CommandResult give(CommandSender sender, String player, int amount, IOHandler ioHandler)
+ * </code>
+ * which runs when you execute the command with "give" "xxx" 1.
+ *
+ * @see Command#addAnnotatedExecutors()
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.CLASS)
+public @interface CommandMethod {
+
+    /**
+     * Set the literal arguments before the parameters of the method
+     *
+     * @return the literal arguments
+     */
+    String[] value() default {};
+
+    /**
+     * Set the permission of the executor
+     *
+     * @return the permission of the executor
+     */
+    CommandPermission permission() default CommandPermission.MEMBER;
+}
@@ -38,6 +38,16 @@ public enum CommandPermission {
         this.priority = commandPermission.priority;
     }
 
+    /**
+     * Get the permission level
+     *
+     * @return the permission level
+     */
+    @Contract(pure = true)
+    public int getPriority() {
+        return this.priority;
+    }
+
     /**
      * Indicate this permission is higher than the comparing permission
      *
@@ -0,0 +1,563 @@
+package top.focess.command;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.UnmodifiableView;
+import top.focess.command.audit.AuditLog;
+import top.focess.command.data.BooleanBuffer;
+import top.focess.command.data.DoubleBuffer;
+import top.focess.command.data.IntBuffer;
+import top.focess.command.data.LongBuffer;
+import top.focess.command.data.StringBuffer;
+import top.focess.command.limit.AdaptiveLimiter;
+import top.focess.command.replay.TrafficRecorder;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * Represents a registry which owns the registered commands and the buffer getters of the data converters.
+ * <p>
+ * The static methods of {@link Command} and {@link DataCollection} use the default registry. Different registries are isolated from each other,
+ * so that each tenant can have its own registry, and it can be discarded as a whole.
+ * <p>
+ * The commands are read from an immutable snapshot including the index of the names and aliases, so the readers never block.
+ * The writers build a new snapshot and publish it with a single atomic swap, so the readers never see a half-updated registry.
+ * <p>
+ * The commands and the buffer getters can be registered with an owner, for example the class loader of a plugin.
+ * {@link #unregisterOwner(Object)} removes all of them, so that the registry no longer keeps the classes of the owner reachable.
+ */
+public class CommandRegistry {
+
+    private static final CommandRegistry DEFAULT_REGISTRY = new CommandRegistry();
+
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private final AtomicReference<Snapshot> snapshot = new AtomicReference<>(Snapshot.EMPTY);
+
+    private final Map<DataConverter<?>, DataCollection.BufferGetter> bufferGetters = Maps.newConcurrentMap();
+
+    @Nullable
+    private volatile AdaptiveLimiter limiter;
+
+    @Nullable
+    private volatile CommandWatchdog watchdog;
+
+    @Nullable
+    private volatile AuditLog auditLog;
+
+    @Nullable
+    private volatile TrafficRecorder recorder;
+
+    /**
+     * The owners of the commands, guarded by this registry
+     */
+    private final Map<Command, Object> commandOwners = new IdentityHashMap<>();
+
+    /**
+     * The owners of the buffer getters, guarded by this registry
+     */
+    private final Map<DataConverter<?>, Object> bufferGetterOwners = Maps.newHashMap();
+
+    /**
+     * Instance a CommandRegistry with the buffer getters of the default data converters
+     */
+    public CommandRegistry() {
+        this.register(DataConverter.LONG_DATA_CONVERTER, LongBuffer::allocate);
+        this.register(DataConverter.DEFAULT_DATA_CONVERTER, StringBuffer::allocate);
+        this.register(DataConverter.INTEGER_DATA_CONVERTER, IntBuffer::allocate);
+        this.register(DataConverter.DOUBLE_DATA_CONVERTER, DoubleBuffer::allocate);
+        this.register(DataConverter.BOOLEAN_DATA_CONVERTER, BooleanBuffer::allocate);
+    }
+
+    /**
+     * Get the default registry used by the static methods of {@link Command} and {@link DataCollection}
+     *
+     * @return the default registry
+     */
+    @NotNull
+    public static CommandRegistry getDefault() {
+        return DEFAULT_REGISTRY;
+    }
+
+    /**
+     * Register the command
+     *
+     * @param command the command that need to be registered
+     * @throws CommandDuplicateException if the command name already exists in the registered commands
+     * @throws IllegalStateException    if the command is not initialized or it is registered in another registry
+     */
+    public void register(@NotNull final Command command) {
+        this.replace(Collections.emptyList(), Collections.singletonList(command));
+    }
+
+    /**
+     * Register the command with its owner
+     *
+     * @param command the command that need to be registered
+     * @param owner   the owner of the command
+     * @throws CommandDuplicateException if the command name already exists in the registered commands
+     * @throws IllegalStateException    if the command is not initialized or it is registered in another registry
+     * @see #unregisterOwner(Object)
+     */
+    public synchronized void register(@NotNull final Command command, @NotNull final Object owner) {
+        this.register(command);
+        this.commandOwners.put(command, owner);
+    }
+
+    /**
+     * Register the commands with their owner in one transaction
+     *
+     * @param commands the commands that need to be registered
+     * @param owner    the owner of the commands
+     * @throws CommandDuplicateException if the command name already exists in the registered commands or in the other added commands
+     * @throws IllegalStateException    if the command is not initialized or it is registered in another registry
+     * @see #replace(Collection, Collection)
+     * @see #unregisterOwner(Object)
+     */
+    public synchronized void register(@NotNull final Collection<? extends Command> commands, @NotNull final Object owner) {
+        this.replace(Collections.emptyList(), commands);
+        for (final Command command : commands)
+            this.commandOwners.put(command, owner);
+    }
+
+    /**
+     * Unregister the command
+     *
+     * @param command the command
+     */
+    public void unregister(@NotNull final Command command) {
+        this.replace(Collections.singletonList(command), Collections.emptyList());
+    }
+
+    /**
+     * Unregister the removed commands and register the added commands in one transaction.
+     * The readers see either all the changes or none of them, and nothing is changed if any added command cannot be registered.
+     *
+     * @param removed the commands to unregister, the commands not registered in this registry are ignored
+     * @param added   the commands to register
+     * @throws CommandDuplicateException if the command name already exists in the registered commands which are not removed
+     * @throws IllegalStateException    if the command is not initialized or it is registered in another registry
+     */
+    public synchronized void replace(@NotNull final Collection<? extends Command> removed, @NotNull final Collection<? extends Command> added) {
+        final Snapshot snapshot = this.snapshot.get();
+        final Map<String, Command> commands = Maps.newLinkedHashMap(snapshot.commands);
+        final Map<String, Command> index = Maps.newHashMap(snapshot.index);
+        final Set<Command> unregistered = Sets.newIdentityHashSet();
+        for (final Command command : removed)
+            if (commands.remove(command.getName(), command)) {
+                for (final String commandName : getNames(command))
+                    index.remove(commandName, command);
+                unregistered.add(command);
+            }
+        for (final Command command : added) {
+            if (command.getName() == null)
+                throw new IllegalStateException("CommandType does not contain name or the constructor does not super name");
+            if (command.getRegistry() != null && (command.getRegistry() != this || !unregistered.contains(command)))
+                throw new IllegalStateException("Command " + command.getName() + " is registered");
+            for (final String commandName : getNames(command))
+                if (index.putIfAbsent(commandName, command) != null)
+                    throw new CommandDuplicateException(commandName);
+            commands.put(command.getName(), command);
+            unregistered.remove(command);
+        }
+        // the added commands are marked before they are published, so that they are registered once they are visible
+        for (final Command command : added)
+            command.setRegistry(this);
+        this.snapshot.set(new Snapshot(ImmutableMap.copyOf(commands), ImmutableMap.copyOf(index)));
+        for (final Command command : unregistered) {
+            command.setRegistry(null);
+            this.commandOwners.remove(command);
+            CommandEvents.registration(command, false);
+        }
+        for (final Command command : added)
+            CommandEvents.registration(command, true);
+    }
+
+    @NotNull
+    private static List<String> getNames(@NotNull final Command command) {
+        final List<String> commandNames = Lists.newArrayList(command.getName().toLowerCase(Locale.ROOT));
+        for (final String alias : command.getAliases())
+            commandNames.add(alias.toLowerCase(Locale.ROOT));
+        return commandNames;
+    }
+
+    /**
+     * Unregister all commands
+     */
+    public void unregisterAll() {
+        for (final Command command : this.snapshot.get().commands.values())
+            command.unregister();
+    }
+
+    /**
+     * Get all commands
+     *
+     * @return All commands as a list
+     */
+    @NotNull
+    @UnmodifiableView
+    public List<Command> getCommands() {
+        return this.snapshot.get().commands.values().asList();
+    }
+
+    /**
+     * Get the registered command by its name or alias, ignoring case
+     *
+     * @param name the name or alias of the command
+     * @return the command, null if there is no such command
+     */
+    @Nullable
+    public Command getCommand(@NotNull final String name) {
+        final Object event = CommandEvents.beginLookup();
+        final Command command = this.snapshot.get().index.get(name.toLowerCase(Locale.ROOT));
+        CommandEvents.endLookup(event, name, command != null);
+        return command;
+    }
+
+    /**
+     * Execute the command line
+     *
+     * @param sender      the executor
+     * @param commandLine the command line, including the command name and the arguments split by spaces
+     * @param ioHandler   the receiver
+     * @return the command result, {@link CommandResult#COMMAND_REFUSED} if there is no such command
+     * @throws Exception the exception that occurred when executing the command
+     */
+    @NotNull
+    public CommandResult execute(@NotNull final CommandSender sender, @NotNull final String commandLine, @NotNull final IOHandler ioHandler) throws Exception {
+        final String[] args = SPACES.split(commandLine.trim());
+        final Command command = this.getCommand(args[0]);
+        if (command == null)
+            return CommandResult.COMMAND_REFUSED;
+        return command.execute(sender, Arrays.copyOfRange(args, 1, args.length), ioHandler);
+    }
+
+    @Nullable
+    public AdaptiveLimiter getAdaptiveLimiter() {
+        return this.limiter;
+    }
+
+    /**
+     * Set the adaptive limiter of the executions of this registry. An execution returns {@link CommandResult#OVERLOADED} at once when it is shed by the limiter.
+     * The limiter is applied in {@link Command#execute(CommandSender, String[], IOHandler)} to all the commands registered in this registry, after the executor is matched,
+     * and the priority of an execution is the priority of the matched executor. The timed out executions are dropped.
+     *
+     * @param limiter the adaptive limiter, null to remove it
+     */
+    public void setAdaptiveLimiter(@Nullable final AdaptiveLimiter limiter) {
+        this.limiter = limiter;
+    }
+
+    @Nullable
+    public CommandWatchdog getWatchdog() {
+        return this.watchdog;
+    }
+
+    /**
+     * Set the watchdog of the executions of this registry, which samples the stacks of the slow executions.
+     * The executions of the executors are watched, including the executions not started by this registry.
+     *
+     * @param watchdog the watchdog, null to remove it
+     */
+    public void setWatchdog(@Nullable final CommandWatchdog watchdog) {
+        this.watchdog = watchdog;
+    }
+
+    @Nullable
+    public AuditLog getAuditLog() {
+        return this.auditLog;
+    }
+
+    /**
+     * Set the audit log of the executions of the commands in this registry.
+     * Every execution of a registered command is recorded with its sender, arguments, command result and duration, and an execution that throws an exception is recorded as {@link CommandResult#REFUSE_EXCEPTION}.
+     *
+     * @param auditLog the audit log, null to remove it
+     */
+    public void setAuditLog(@Nullable final AuditLog auditLog) {
+        this.auditLog = auditLog;
+    }
+
+    @Nullable
+    public TrafficRecorder getTrafficRecorder() {
+        return this.recorder;
+    }
+
+    /**
+     * Set the recorder of the command lines executed by the commands in this registry, whose recording can be replayed by {@link top.focess.command.replay.TrafficReplayer}
+     *
+     * @param recorder the recorder, null to remove it
+     */
+    public void setTrafficRecorder(@Nullable final TrafficRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    /**
+     * Execute the command lines one by one
+     *
+     * @param entries the command lines
+     * @return the command results in the order of the entries
+     * @see #executeBatch(List, ForkJoinPool)
+     */
+    @NotNull
+    @UnmodifiableView
+    public List<CommandResult> executeBatch(@NotNull final List<BatchEntry> entries) {
+        return this.executeBatch(entries, null);
+    }
+
+    /**
+     * Execute the command lines as a batch.
+     * All the command lines are resolved against the same snapshot of this registry, and each distinct command name is resolved only once.
+     * The entries are grouped by their commands, and the entries of a group share the matches of the arguments to the executors and the converted values of the arguments,
+     * so that the same arguments are matched and converted only once in a group. The data converters are expected to be pure.
+     * If the pool is given, the groups are executed in parallel, while the entries of the same command are still executed in their order.
+     * <p>
+     * If an entry throws an exception, its result is {@link CommandResult#REFUSE_EXCEPTION} and the exception is set to {@link BatchEntry#getException()}.
+     *
+     * @param entries the command lines
+     * @param pool    the pool to execute the groups of different commands in parallel, null to execute all entries in the current thread
+     * @return the command results in the order of the entries
+     */
+    @NotNull
+    @UnmodifiableView
+    public List<CommandResult> executeBatch(@NotNull final List<BatchEntry> entries, @Nullable final ForkJoinPool pool) {
+        final Snapshot snapshot = this.snapshot.get();
+        final CommandResult[] results = new CommandResult[entries.size()];
+        final Command[] commands = new Command[entries.size()];
+        final Map<String, Command> resolved = Maps.newHashMap();
+        final Map<Command, List<Integer>> groups = new IdentityHashMap<>();
+        for (int i = 0; i < results.length; i++) {
+            final String commandLine = entries.get(i).commandLine.trim();
+            int end = 0;
+            while (end < commandLine.length() && !Character.isWhitespace(commandLine.charAt(end)))
+                end++;
+            final Command command = resolved.computeIfAbsent(commandLine.substring(0, end), name -> {
+                final Object event = CommandEvents.beginLookup();
+                final Command found = snapshot.index.get(name.toLowerCase(Locale.ROOT));
+                CommandEvents.endLookup(event, name, found != null);
+                return found;
+            });
+            if (command == null)
+                results[i] = CommandResult.COMMAND_REFUSED;
+            else if (pool != null)
+                groups.computeIfAbsent(command, k -> Lists.newArrayList()).add(i);
+            commands[i] = command;
+        }
+        if (pool == null || groups.size() < 2) {
+            final Map<Command, BatchContext> batches = new IdentityHashMap<>();
+            for (int i = 0; i < results.length; i++)
+                if (commands[i] != null)
+                    results[i] = executeBatch(commands[i], entries.get(i), batches.computeIfAbsent(commands[i], k -> new BatchContext()));
+        } else {
+            final List<ForkJoinTask<?>> tasks = Lists.newArrayList();
+            for (final Map.Entry<Command, List<Integer>> group : groups.entrySet())
+                tasks.add(pool.submit(() -> {
+                    final BatchContext batch = new BatchContext();
+                    for (final int index : group.getValue())
+                        results[index] = executeBatch(group.getKey(), entries.get(index), batch);
+                }));
+            for (final ForkJoinTask<?> task : tasks)
+                task.join();
+        }
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+
+    @NotNull
+    private static CommandResult executeBatch(@NotNull final Command command, @NotNull final BatchEntry entry, @NotNull final BatchContext batch) {
+        final BatchContext.Line line = batch.getLine(entry.commandLine);
+        entry.exception = null;
+        try {
+            if (line != null)
+                return command.execute(entry.sender, line.getArgs(), entry.ioHandler, line);
+            final String[] args = SPACES.split(entry.commandLine.trim());
+            return command.execute(entry.sender, Arrays.copyOfRange(args, 1, args.length), entry.ioHandler);
+        } catch (final Exception e) {
+            entry.exception = e;
+            return CommandResult.REFUSE_EXCEPTION;
+        }
+    }
+
+    /**
+     * Register the getter of the buffer
+     *
+     * @param dataConverter the buffer data converter
+     * @param bufferGetter  the getter of the buffer
+     */
+    public synchronized void register(@NotNull final DataConverter<?> dataConverter, @NotNull final DataCollection.BufferGetter bufferGetter) {
+        this.bufferGetters.put(dataConverter, bufferGetter);
+        // the replaced buffer getter may be registered with an owner, which no longer owns this one
+        this.bufferGetterOwners.remove(dataConverter);
+    }
+
+    /**
+     * Register the getter of the buffer with its owner
+     *
+     * @param dataConverter the buffer data converter
+     * @param bufferGetter  the getter of the buffer
+     * @param owner         the owner of the buffer getter
+     * @see #unregisterOwner(Object)
+     */
+    public synchronized void register(@NotNull final DataConverter<?> dataConverter, @NotNull final DataCollection.BufferGetter bufferGetter, @NotNull final Object owner) {
+        this.bufferGetters.put(dataConverter, bufferGetter);
+        this.bufferGetterOwners.put(dataConverter, owner);
+    }
+
+    /**
+     * Unregister the getter of the buffer
+     *
+     * @param dataConverter the data converter
+     */
+    public synchronized void unregister(@NotNull final DataConverter<?> dataConverter) {
+        this.bufferGetters.remove(dataConverter);
+        this.bufferGetterOwners.remove(dataConverter);
+    }
+
+    /**
+     * Unregister all the getter of the buffers
+     */
+    public synchronized void unregisterAllBufferGetters() {
+        this.bufferGetters.clear();
+        this.bufferGetterOwners.clear();
+    }
+
+    /**
+     * Unregister all the commands and the buffer getters registered with the owner.
+     * The commands are removed in one transaction, and their executors, caches, rate limiters and cooldowns are cleared, so that nothing in this registry keeps the owner reachable.
+     *
+     * @param owner the owner
+     * @return the unregistered commands
+     */
+    @NotNull
+    @UnmodifiableView
+    public List<Command> unregisterOwner(@NotNull final Object owner) {
+        final List<Command> commands = Lists.newArrayList();
+        synchronized (this) {
+            for (final Map.Entry<Command, Object> entry : this.commandOwners.entrySet())
+                if (entry.getValue().equals(owner))
+                    commands.add(entry.getKey());
+            this.replace(commands, Collections.emptyList());
+            this.bufferGetterOwners.entrySet().removeIf(entry -> {
+                if (!entry.getValue().equals(owner))
+                    return false;
+                this.bufferGetters.remove(entry.getKey());
+                return true;
+            });
+        }
+        for (final Command command : commands)
+            command.unregister();
+        return Collections.unmodifiableList(commands);
+    }
+
+    /**
+     * Get the owner of the command
+     *
+     * @param command the command
+     * @return the owner of the command, null if the command is not registered with an owner in this registry
+     */
+    @Nullable
+    public synchronized Object getOwner(@NotNull final Command command) {
+        return this.commandOwners.get(command);
+    }
+
+    /**
+     * Get the getter of the buffer
+     *
+     * @param dataConverter the data converter
+     * @return the getter of the buffer, null if it is not registered
+     */
+    @Nullable
+    public DataCollection.BufferGetter getBufferGetter(@NotNull final DataConverter<?> dataConverter) {
+        return this.bufferGetters.get(dataConverter);
+    }
+
+    /**
+     * An immutable snapshot of the registered commands
+     */
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(ImmutableMap.of(), ImmutableMap.of());
+
+        /**
+         * The commands keyed by their names
+         */
+        private final ImmutableMap<String, Command> commands;
+
+        /**
+         * The commands keyed by their lower case names and aliases
+         */
+        private final ImmutableMap<String, Command> index;
+
+        private Snapshot(@NotNull final ImmutableMap<String, Command> commands, @NotNull final ImmutableMap<String, Command> index) {
+            this.commands = commands;
+            this.index = index;
+        }
+    }
+
+    /**
+     * Represents a command line in a batch
+     */
+    public static final class BatchEntry {
+
+        private final CommandSender sender;
+
+        private final String commandLine;
+
+        private final IOHandler ioHandler;
+
+        @Nullable
+        private volatile Exception exception;
+
+        /**
+         * Instance a BatchEntry
+         *
+         * @param sender      the executor
+         * @param commandLine the command line, including the command name and the arguments split by spaces
+         * @param ioHandler   the receiver
+         */
+        public BatchEntry(@NotNull final CommandSender sender, @NotNull final String commandLine, @NotNull final IOHandler ioHandler) {
+            this.sender = sender;
+            this.commandLine = commandLine;
+            this.ioHandler = ioHandler;
+        }
+
+        @NotNull
+        public CommandSender getSender() {
+            return this.sender;
+        }
+
+        @NotNull
+        public String getCommandLine() {
+            return this.commandLine;
+        }
+
+        @NotNull
+        public IOHandler getIoHandler() {
+            return this.ioHandler;
+        }
+
+        /**
+         * Get the exception that occurred when this command line was last executed in a batch
+         *
+         * @return the exception, null if there is no exception
+         */
+        @Nullable
+        public Exception getException() {
+            return this.exception;
+        }
+    }
+}
@@ -30,14 +30,34 @@ public enum CommandResult {
      * It indicates that there is an exception
      */
     REFUSE_EXCEPTION(32),
+    /**
+     * It indicates that the sender has exceeded the rate limit
+     */
+    THROTTLED(64),
+    /**
+     * It indicates that the sender is cooling down
+     */
+    COOLDOWN(128),
+    /**
+     * It indicates that the execution has exceeded its timeout and is cancelled
+     */
+    TIMEOUT(256),
+    /**
+     * It indicates that the bulkhead is full
+     */
+    REJECTED(512),
+    /**
+     * It indicates that the registry is overloaded and the execution is shed
+     */
+    OVERLOADED(1024),
     /**
      * It includes all CommandResult
      */
-    ALL(ALLOW, REFUSE, COMMAND_REFUSED, ARGS_NOT_EXECUTED, ARGS),
+    ALL(ALLOW, REFUSE, COMMAND_REFUSED, ARGS_NOT_EXECUTED, ARGS, THROTTLED, COOLDOWN, TIMEOUT, REJECTED, OVERLOADED),
     /**
      * It includes all negative CommandResult
      */
-    NEGATIVE(REFUSE, COMMAND_REFUSED, ARGS_NOT_EXECUTED, ARGS, REFUSE_EXCEPTION),
+    NEGATIVE(REFUSE, COMMAND_REFUSED, ARGS_NOT_EXECUTED, ARGS, REFUSE_EXCEPTION, THROTTLED, COOLDOWN, TIMEOUT, REJECTED, OVERLOADED),
     /**
      * It includes all executed CommandResult
      */
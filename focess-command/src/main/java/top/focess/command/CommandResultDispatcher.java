@@ -0,0 +1,213 @@
+package top.focess.command;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Deliver the CommandResults to the asynchronous {@link CommandResultExecutor}s in a dedicated thread, so that the slow executors do not delay the executions of the commands.
+ * <p>
+ * The CommandResults are queued in a bounded lock-free queue. When the queue is full, the CommandResult is handled by the {@link OverflowPolicy}.
+ *
+ * @see Command.Executor#addAsyncCommandResultExecutor(CommandResult, CommandResultExecutor)
+ */
+public class CommandResultDispatcher implements AutoCloseable {
+
+    private static final AtomicInteger DISPATCHER_ID = new AtomicInteger();
+
+    private final Queue<Delivery> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final int capacity;
+
+    private final OverflowPolicy overflowPolicy;
+
+    private final Thread thread;
+
+    private final AtomicBoolean sleeping = new AtomicBoolean();
+
+    private final AtomicLong delivered = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private volatile boolean closed;
+
+    /**
+     * Instance a CommandResultDispatcher
+     *
+     * @param capacity       the max number of the CommandResults waiting to be delivered
+     * @param overflowPolicy the policy when the queue is full
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public CommandResultDispatcher(final int capacity, @NotNull final OverflowPolicy overflowPolicy) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive");
+        this.capacity = capacity;
+        this.overflowPolicy = overflowPolicy;
+        this.thread = new Thread(this::work, "CommandResultDispatcher-" + DISPATCHER_ID.incrementAndGet());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Get the default dispatcher, which queues at most 8192 CommandResults and drops the new ones when it is full
+     *
+     * @return the default dispatcher
+     */
+    @NotNull
+    public static CommandResultDispatcher getDefault() {
+        return Default.DISPATCHER;
+    }
+
+    /**
+     * Queue the CommandResult to be delivered to the executor
+     *
+     * @param executor the executor
+     * @param result   the CommandResult
+     */
+    public void dispatch(@NotNull final CommandResultExecutor executor, @NotNull final CommandResult result) {
+        final Delivery delivery = new Delivery(executor, result);
+        if (this.closed) {
+            this.dropped.incrementAndGet();
+            return;
+        }
+        while (this.size.incrementAndGet() > this.capacity) {
+            this.size.decrementAndGet();
+            switch (this.overflowPolicy) {
+                case DROP_NEWEST:
+                    this.dropped.incrementAndGet();
+                    return;
+                case CALLER_RUNS:
+                    this.deliver(delivery);
+                    return;
+                case DROP_OLDEST:
+                    if (this.queue.poll() != null) {
+                        this.size.decrementAndGet();
+                        this.dropped.incrementAndGet();
+                    }
+            }
+        }
+        this.queue.offer(delivery);
+        if (this.sleeping.get() && this.sleeping.compareAndSet(true, false))
+            LockSupport.unpark(this.thread);
+    }
+
+    private void work() {
+        while (true) {
+            final Delivery delivery = this.queue.poll();
+            if (delivery != null) {
+                this.size.decrementAndGet();
+                this.deliver(delivery);
+                continue;
+            }
+            if (this.closed)
+                return;
+            this.sleeping.set(true);
+            // check again after announcing sleeping, so that a delivery queued before it is not missed
+            if (this.queue.isEmpty() && !this.closed)
+                LockSupport.park(this);
+            this.sleeping.set(false);
+        }
+    }
+
+    private void deliver(@NotNull final Delivery delivery) {
+        try {
+            delivery.executor.execute(delivery.result);
+            this.delivered.incrementAndGet();
+        } catch (final Throwable e) {
+            this.failed.incrementAndGet();
+        }
+    }
+
+    /**
+     * Close this dispatcher. The queued CommandResults are still delivered, and the new CommandResults are dropped.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        LockSupport.unpark(this.thread);
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Get the number of the CommandResults waiting to be delivered
+     *
+     * @return the number of the waiting CommandResults
+     */
+    public int size() {
+        return Math.max(0, this.size.get());
+    }
+
+    /**
+     * Get the number of the CommandResults delivered to the executors without exceptions
+     *
+     * @return the number of the delivered CommandResults
+     */
+    public long getDeliveredCount() {
+        return this.delivered.get();
+    }
+
+    /**
+     * Get the number of the CommandResults dropped because the queue is full or this dispatcher is closed
+     *
+     * @return the number of the dropped CommandResults
+     */
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Get the number of the CommandResults whose executors threw exceptions
+     *
+     * @return the number of the failed CommandResults
+     */
+    public long getFailedCount() {
+        return this.failed.get();
+    }
+
+    /**
+     * Represents the policy when the queue of a CommandResultDispatcher is full
+     */
+    public enum OverflowPolicy {
+        /**
+         * Drop the new CommandResult
+         */
+        DROP_NEWEST,
+        /**
+         * Drop the oldest queued CommandResult to make room for the new one
+         */
+        DROP_OLDEST,
+        /**
+         * Deliver the new CommandResult in the thread executing the command
+         */
+        CALLER_RUNS
+    }
+
+    private static final class Delivery {
+
+        private final CommandResultExecutor executor;
+
+        private final CommandResult result;
+
+        private Delivery(@NotNull final CommandResultExecutor executor, @NotNull final CommandResult result) {
+            this.executor = executor;
+            this.result = result;
+        }
+    }
+
+    private static final class Default {
+
+        private static final CommandResultDispatcher DISPATCHER = new CommandResultDispatcher(8192, OverflowPolicy.DROP_NEWEST);
+    }
+}
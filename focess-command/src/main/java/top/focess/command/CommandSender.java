@@ -21,4 +21,24 @@ public abstract class CommandSender {
     public boolean hasPermission(final CommandPermission permission) {
         return this.permission.hasPermission(permission);
     }
+
+    /**
+     * Get the permission of this CommandSender
+     *
+     * @return the permission of this CommandSender
+     */
+    public CommandPermission getPermission() {
+        return this.permission;
+    }
+
+    /**
+     * Get the identity of this CommandSender. It is used to distinguish senders, for example, in rate limiting.
+     *
+     * Note: by default the CommandSender itself is the identity. Override it if the same sender may be represented by different CommandSender instances.
+     *
+     * @return the identity of this CommandSender
+     */
+    public Object getIdentity() {
+        return this;
+    }
 }
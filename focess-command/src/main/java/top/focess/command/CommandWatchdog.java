@@ -0,0 +1,232 @@
+package top.focess.command;
+
+import com.google.common.collect.Lists;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.UnmodifiableView;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Watch the running executions of the commands, and sample the stacks of the executions slower than the threshold.
+ * <p>
+ * The watchdog thread checks the running executions at every interval. Once an execution runs longer than the threshold, the stack of its thread is sampled at every interval until it finishes.
+ * Then a {@link SlowExecutionReport} is kept in a bounded ring of the latest reports and passed to the callback in the watchdog thread. The executions faster than the threshold are never sampled.
+ *
+ * @see CommandRegistry#setWatchdog(CommandWatchdog)
+ */
+public class CommandWatchdog implements AutoCloseable {
+
+    private static final AtomicInteger WATCHDOG_ID = new AtomicInteger();
+
+    /**
+     * The max number of the frames kept in a sampled stack
+     */
+    private static final int MAX_DEPTH = 64;
+
+    private final long threshold;
+
+    private final long interval;
+
+    private final int maxSamples;
+
+    private final int capacity;
+
+    @Nullable
+    private final Consumer<SlowExecutionReport> callback;
+
+    private final Set<Execution> running = ConcurrentHashMap.newKeySet();
+
+    private final Queue<Execution> finished = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The latest reports, guarded by itself
+     */
+    private final ArrayDeque<SlowExecutionReport> reports = new ArrayDeque<>();
+
+    private final Thread thread;
+
+    private volatile boolean closed;
+
+    /**
+     * Instance a CommandWatchdog
+     *
+     * @param threshold  the duration above which an execution is slow
+     * @param interval   the interval between the samples of a slow execution
+     * @param unit       the time unit of the threshold and the interval
+     * @param maxSamples the max number of different stacks kept for an execution, the later stacks are dropped
+     * @param capacity   the max number of the latest reports kept
+     * @param callback   the callback of the reports, null if there is no callback
+     * @throws IllegalArgumentException if any of the threshold, the interval, the max samples and the capacity is not positive
+     */
+    public CommandWatchdog(final long threshold, final long interval, @NotNull final TimeUnit unit, final int maxSamples, final int capacity, @Nullable final Consumer<SlowExecutionReport> callback) {
+        if (threshold <= 0 || interval <= 0 || maxSamples <= 0 || capacity <= 0)
+            throw new IllegalArgumentException("Threshold, interval, max samples and capacity must be positive");
+        this.threshold = unit.toNanos(threshold);
+        this.interval = unit.toNanos(interval);
+        this.maxSamples = maxSamples;
+        this.capacity = capacity;
+        this.callback = callback;
+        this.thread = new Thread(this::work, "CommandWatchdog-" + WATCHDOG_ID.incrementAndGet());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Instance a CommandWatchdog which keeps at most 32 stacks for an execution and the latest 64 reports
+     *
+     * @param threshold the duration above which an execution is slow
+     * @param interval  the interval between the samples of a slow execution
+     * @param unit      the time unit of the threshold and the interval
+     * @param callback  the callback of the reports, null if there is no callback
+     * @throws IllegalArgumentException if the threshold or the interval is not positive
+     */
+    public CommandWatchdog(final long threshold, final long interval, @NotNull final TimeUnit unit, @Nullable final Consumer<SlowExecutionReport> callback) {
+        this(threshold, interval, unit, 32, 64, callback);
+    }
+
+    @NotNull
+    Execution start(@NotNull final Command command, final int executorIndex, @NotNull final String[] args) {
+        final Execution execution = new Execution(command.getName(), executorIndex, args);
+        this.running.add(execution);
+        return execution;
+    }
+
+    void finish(@NotNull final Execution execution, @NotNull final CommandResult result) {
+        execution.duration = System.nanoTime() - execution.startTime;
+        execution.result = result;
+        this.running.remove(execution);
+        // only the executions marked slow by the watchdog thread are reported
+        if (Execution.STATE.getAndSet(execution, Execution.FINISHED) == Execution.SLOW)
+            this.finished.offer(execution);
+    }
+
+    private void work() {
+        while (!this.closed) {
+            LockSupport.parkNanos(this, this.interval);
+            final long now = System.nanoTime();
+            for (final Execution execution : this.running)
+                if (now - execution.startTime >= this.threshold)
+                    this.sample(execution, now);
+            Execution execution;
+            while ((execution = this.finished.poll()) != null)
+                this.report(execution);
+        }
+    }
+
+    private void sample(@NotNull final Execution execution, final long now) {
+        if (execution.state == Execution.RUNNING && !Execution.STATE.compareAndSet(execution, Execution.RUNNING, Execution.SLOW))
+            return;
+        if (execution.state != Execution.SLOW)
+            return;
+        StackTraceElement[] stackTrace = execution.thread.getStackTrace();
+        if (stackTrace.length > MAX_DEPTH)
+            stackTrace = Arrays.copyOf(stackTrace, MAX_DEPTH);
+        final List<SlowExecutionReport.Sample> samples = execution.samples;
+        if (!samples.isEmpty() && samples.get(samples.size() - 1).merge(stackTrace))
+            return;
+        if (samples.size() < this.maxSamples)
+            samples.add(new SlowExecutionReport.Sample(now - execution.startTime, stackTrace));
+    }
+
+    private void report(@NotNull final Execution execution) {
+        final long startTime = System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - execution.startTime);
+        final SlowExecutionReport report = new SlowExecutionReport(execution.command, execution.executorIndex, execution.args, execution.thread.getName(), startTime, execution.duration, execution.result, execution.samples);
+        synchronized (this.reports) {
+            if (this.reports.size() == this.capacity)
+                this.reports.poll();
+            this.reports.offer(report);
+        }
+        if (this.callback != null)
+            try {
+                this.callback.accept(report);
+            } catch (final Throwable ignored) {
+                // the callback cannot stop the watchdog
+            }
+    }
+
+    /**
+     * Get the latest reports from the oldest to the newest
+     *
+     * @return the latest reports
+     */
+    @NotNull
+    @UnmodifiableView
+    public List<SlowExecutionReport> getReports() {
+        synchronized (this.reports) {
+            return Collections.unmodifiableList(Lists.newArrayList(this.reports));
+        }
+    }
+
+    /**
+     * Get the number of the running executions
+     *
+     * @return the number of the running executions
+     */
+    public int getRunningCount() {
+        return this.running.size();
+    }
+
+    /**
+     * Close this watchdog. The running executions are no longer sampled.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        LockSupport.unpark(this.thread);
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    static final class Execution {
+
+        private static final int RUNNING = 0;
+
+        private static final int SLOW = 1;
+
+        private static final int FINISHED = 2;
+
+        private static final AtomicIntegerFieldUpdater<Execution> STATE = AtomicIntegerFieldUpdater.newUpdater(Execution.class, "state");
+
+        private final String command;
+
+        private final int executorIndex;
+
+        private final String[] args;
+
+        private final Thread thread = Thread.currentThread();
+
+        private final long startTime = System.nanoTime();
+
+        /**
+         * The sampled stacks, only accessed by the watchdog thread
+         */
+        private final List<SlowExecutionReport.Sample> samples = Lists.newArrayList();
+
+        private volatile int state;
+
+        private long duration;
+
+        private CommandResult result;
+
+        private Execution(@NotNull final String command, final int executorIndex, @NotNull final String[] args) {
+            this.command = command;
+            this.executorIndex = executorIndex;
+            this.args = args;
+        }
+    }
+}
@@ -5,7 +5,6 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 import top.focess.command.data.*;
-import top.focess.command.data.StringBuffer;
 
 import java.util.Map;
 import java.util.Objects;
@@ -15,24 +14,24 @@ import java.util.Objects;
  */
 public class DataCollection {
 
-    private static final Map<DataConverter<?>, BufferGetter> DATA_CONVERTER_BUFFER_MAP = Maps.newConcurrentMap();
+    private final Map<Class<?>, DataBuffer> buffers = Maps.newHashMap();
 
-    static {
-        register(DataConverter.LONG_DATA_CONVERTER, LongBuffer::allocate);
-        register(DataConverter.DEFAULT_DATA_CONVERTER, StringBuffer::allocate);
-        register(DataConverter.INTEGER_DATA_CONVERTER, IntBuffer::allocate);
-        register(DataConverter.DOUBLE_DATA_CONVERTER, DoubleBuffer::allocate);
-        register(DataConverter.BOOLEAN_DATA_CONVERTER, BooleanBuffer::allocate);
+    /**
+     * Initialize the DataCollection with fixed size and the buffer getters in the default registry.
+     *
+     * @param dataConverters the data converters
+     */
+    public DataCollection(@NotNull final DataConverter<?>[] dataConverters) {
+        this(CommandRegistry.getDefault(), dataConverters);
     }
 
-    private final Map<Class<?>, DataBuffer> buffers = Maps.newHashMap();
-
     /**
      * Initialize the DataCollection with fixed size.
      *
+     * @param registry       the registry of the buffer getters
      * @param dataConverters the data converters
      */
-    public DataCollection(@NotNull final DataConverter<?>[] dataConverters) {
+    public DataCollection(@NotNull final CommandRegistry registry, @NotNull final DataConverter<?>[] dataConverters) {
         final Map<DataConverter<?>, Integer> map = Maps.newHashMap();
         for (final DataConverter<?> dataConverter : dataConverters)
             map.compute(dataConverter, (k, v) -> {
@@ -42,32 +41,32 @@ public class DataCollection {
                 return v;
             });
         for (final DataConverter<?> dataConverter : map.keySet())
-            this.buffers.put(dataConverter.getTargetClass(), DATA_CONVERTER_BUFFER_MAP.get(dataConverter).newBuffer(map.get(dataConverter)));
+            this.buffers.put(dataConverter.getTargetClass(), Objects.requireNonNull(registry.getBufferGetter(dataConverter), "Buffer getter is not registered").newBuffer(map.get(dataConverter)));
     }
 
     /**
-     * Register the getter of the buffer
+     * Register the getter of the buffer in the default registry
      *
      * @param dataConverter the buffer data converter
      * @param bufferGetter  the getter of the buffer
      */
     public static void register(final DataConverter<?> dataConverter, final BufferGetter bufferGetter) {
-        DATA_CONVERTER_BUFFER_MAP.put(dataConverter, bufferGetter);
+        CommandRegistry.getDefault().register(dataConverter, bufferGetter);
     }
 
     /**
-     * Unregister the getter of the buffer
+     * Unregister the getter of the buffer in the default registry
      * @param dataConverter the data converter
      */
     public static void unregister(final DataConverter<?> dataConverter) {
-        DATA_CONVERTER_BUFFER_MAP.remove(dataConverter);
+        CommandRegistry.getDefault().unregister(dataConverter);
     }
 
     /**
-     * Unregister all the getter of the buffers
+     * Unregister all the getter of the buffers in the default registry
      */
     public static void unregisterAll() {
-        DATA_CONVERTER_BUFFER_MAP.clear();
+        CommandRegistry.getDefault().unregisterAllBufferGetters();
     }
 
     /**
@@ -96,6 +95,9 @@ public class DataCollection {
      * @throws NullPointerException if the value is null
      */
     public int getInt() {
+        final DataBuffer<?> buffer = this.buffers.get(Integer.class);
+        if (buffer instanceof IntBuffer)
+            return ((IntBuffer) buffer).getInt();
         return Objects.requireNonNull(this.get(Integer.class));
     }
 
@@ -106,6 +108,9 @@ public class DataCollection {
      * @throws NullPointerException if the value is null
      */
     public double getDouble() {
+        final DataBuffer<?> buffer = this.buffers.get(Double.class);
+        if (buffer instanceof DoubleBuffer)
+            return ((DoubleBuffer) buffer).getDouble();
         return Objects.requireNonNull(this.get(Double.class));
     }
 
@@ -116,6 +121,9 @@ public class DataCollection {
      * @throws NullPointerException if the value is null
      */
     public boolean getBoolean() {
+        final DataBuffer<?> buffer = this.buffers.get(Boolean.class);
+        if (buffer instanceof BooleanBuffer)
+            return ((BooleanBuffer) buffer).getBoolean();
         return Objects.requireNonNull(this.get(Boolean.class));
     }
 
@@ -126,6 +134,9 @@ public class DataCollection {
      * @throws NullPointerException if the value is null
      */
     public long getLong() {
+        final DataBuffer<?> buffer = this.buffers.get(Long.class);
+        if (buffer instanceof LongBuffer)
+            return ((LongBuffer) buffer).getLong();
         return Objects.requireNonNull(this.get(Long.class));
     }
 
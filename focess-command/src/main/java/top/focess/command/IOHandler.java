@@ -4,6 +4,7 @@ import org.checkerframework.checker.nullness.qual.NonNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This class is used to handle input and output when executing Command.
@@ -39,7 +40,10 @@ public abstract class IOHandler {
             // this.value cannot be null, because the change of value is synchronized
             return Objects.requireNonNull(this.value);
         } else {
-            if (this.hasInput()) {
+            final Object event = CommandEvents.beginInput();
+            final boolean received = this.hasInput();
+            CommandEvents.endInput(event, received);
+            if (received) {
                 this.flag = false;
                 if (this.value == null)
                     throw new InputTimeoutException();
@@ -62,12 +66,28 @@ public abstract class IOHandler {
 
     /**
      * Indicate there needs a message.
+     * It stops waiting when the deadline of the {@link CancellationToken} of the current execution is reached.
      *
      * @return true if there is an input message, false otherwise
      */
     public synchronized boolean hasInput() {
+        final CancellationToken token = CancellationToken.current();
         try {
-            this.wait();
+            if (token == null)
+                this.wait();
+            else {
+                final long remaining = token.getRemaining(TimeUnit.NANOSECONDS);
+                // wait(0) waits forever
+                if (remaining > 0)
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                if (token.isCancelled())
+                    return false;
+                if (token.getRemaining(TimeUnit.NANOSECONDS) == 0) {
+                    // the wait may end at the deadline before the timer cancels the token
+                    token.cancel();
+                    return false;
+                }
+            }
             return true;
         } catch (InterruptedException e) {
             return false;
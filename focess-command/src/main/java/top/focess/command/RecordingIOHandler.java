@@ -0,0 +1,70 @@
+package top.focess.command;
+
+import com.google.common.collect.Lists;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.UnmodifiableView;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is used to record the output Strings of an execution while passing them to the receiver, so that the output can be replayed later.
+ */
+final class RecordingIOHandler extends IOHandler {
+
+    private final IOHandler ioHandler;
+
+    private final List<String> outputs = Collections.synchronizedList(Lists.newArrayList());
+
+    private volatile boolean inputUsed;
+
+    RecordingIOHandler(@NotNull final IOHandler ioHandler) {
+        this.ioHandler = ioHandler;
+    }
+
+    @Override
+    public void output(final String output) {
+        this.outputs.add(output);
+        this.ioHandler.output(output);
+    }
+
+    @NotNull
+    @Override
+    public String input() throws InputTimeoutException {
+        this.inputUsed = true;
+        return this.ioHandler.input();
+    }
+
+    @Override
+    public void input(@Nullable final String input) {
+        this.ioHandler.input(input);
+    }
+
+    @Override
+    public boolean hasInput() {
+        return this.ioHandler.hasInput();
+    }
+
+    /**
+     * Get the recorded output Strings
+     *
+     * @return the recorded output Strings
+     */
+    @NotNull
+    @UnmodifiableView
+    List<String> getOutputs() {
+        synchronized (this.outputs) {
+            return Collections.unmodifiableList(Lists.newArrayList(this.outputs));
+        }
+    }
+
+    /**
+     * Indicate whether the execution has read any input, then its output depends on the input and cannot be replayed
+     *
+     * @return true if the execution has read any input, false otherwise
+     */
+    boolean isInputUsed() {
+        return this.inputUsed;
+    }
+}
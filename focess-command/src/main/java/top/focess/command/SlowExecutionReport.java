@@ -0,0 +1,168 @@
+package top.focess.command;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.UnmodifiableView;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents an execution slower than the threshold of a {@link CommandWatchdog}, with the stacks of its thread sampled while it was running.
+ */
+public final class SlowExecutionReport {
+
+    private final String command;
+
+    private final int executorIndex;
+
+    private final List<String> arguments;
+
+    private final String threadName;
+
+    private final long startTime;
+
+    private final long duration;
+
+    private final CommandResult result;
+
+    private final List<Sample> samples;
+
+    SlowExecutionReport(@NotNull final String command, final int executorIndex, @NotNull final String[] arguments, @NotNull final String threadName, final long startTime, final long duration, @NotNull final CommandResult result, @NotNull final List<Sample> samples) {
+        this.command = command;
+        this.executorIndex = executorIndex;
+        this.arguments = Collections.unmodifiableList(Arrays.asList(arguments.clone()));
+        this.threadName = threadName;
+        this.startTime = startTime;
+        this.duration = duration;
+        this.result = result;
+        this.samples = Collections.unmodifiableList(samples);
+    }
+
+    /**
+     * Get the name of the command
+     *
+     * @return the name of the command
+     */
+    @NotNull
+    public String getCommand() {
+        return this.command;
+    }
+
+    /**
+     * Get the index of the executor in the command
+     *
+     * @return the index of the executor
+     */
+    public int getExecutorIndex() {
+        return this.executorIndex;
+    }
+
+    @NotNull
+    @UnmodifiableView
+    public List<String> getArguments() {
+        return this.arguments;
+    }
+
+    @NotNull
+    public String getThreadName() {
+        return this.threadName;
+    }
+
+    /**
+     * Get the time the execution started
+     *
+     * @return the start time in milliseconds since the epoch
+     */
+    public long getStartTime() {
+        return this.startTime;
+    }
+
+    /**
+     * Get the time the execution took
+     *
+     * @param unit the time unit
+     * @return the duration of the execution
+     */
+    public long getDuration(@NotNull final TimeUnit unit) {
+        return unit.convert(this.duration, TimeUnit.NANOSECONDS);
+    }
+
+    @NotNull
+    public CommandResult getResult() {
+        return this.result;
+    }
+
+    /**
+     * Get the sampled stacks in order. The same stack sampled several times in a row is one sample.
+     *
+     * @return the sampled stacks
+     */
+    @NotNull
+    @UnmodifiableView
+    public List<Sample> getSamples() {
+        return this.samples;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder();
+        builder.append("Slow execution of ").append(this.command).append(" (executor ").append(this.executorIndex).append(", arguments ").append(this.arguments)
+                .append(") in ").append(this.threadName).append(" took ").append(this.getDuration(TimeUnit.MILLISECONDS)).append("ms, result ").append(this.result);
+        for (final Sample sample : this.samples) {
+            builder.append("\n  at +").append(sample.getOffset(TimeUnit.MILLISECONDS)).append("ms x").append(sample.getCount());
+            for (final StackTraceElement element : sample.stackTrace)
+                builder.append("\n    ").append(element);
+        }
+        return builder.toString();
+    }
+
+    /**
+     * Represents a stack sampled once or several times in a row
+     */
+    public static final class Sample {
+
+        private final long offset;
+
+        private final StackTraceElement[] stackTrace;
+
+        private int count = 1;
+
+        Sample(final long offset, @NotNull final StackTraceElement[] stackTrace) {
+            this.offset = offset;
+            this.stackTrace = stackTrace;
+        }
+
+        /**
+         * Get the time from the start of the execution to the first time the stack was sampled
+         *
+         * @param unit the time unit
+         * @return the offset of the sample
+         */
+        public long getOffset(@NotNull final TimeUnit unit) {
+            return unit.convert(this.offset, TimeUnit.NANOSECONDS);
+        }
+
+        /**
+         * Get the number of times the stack was sampled in a row
+         *
+         * @return the number of times the stack was sampled
+         */
+        public int getCount() {
+            return this.count;
+        }
+
+        @NotNull
+        public StackTraceElement[] getStackTrace() {
+            return this.stackTrace.clone();
+        }
+
+        boolean merge(@NotNull final StackTraceElement[] stackTrace) {
+            if (!Arrays.equals(this.stackTrace, stackTrace))
+                return false;
+            this.count++;
+            return true;
+        }
+    }
+}
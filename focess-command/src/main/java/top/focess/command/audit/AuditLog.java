@@ -0,0 +1,424 @@
+package top.focess.command.audit;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import top.focess.command.Command;
+import top.focess.command.CommandPermission;
+import top.focess.command.CommandResult;
+import top.focess.command.CommandSender;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Write the audit records of the executed commands into memory-mapped segment files.
+ * <p>
+ * The executing threads only copy the fields of a record into a slot of a bounded ring, claimed by a compare-and-set. A single writer thread encodes the records in order into the current segment,
+ * and starts a new segment when it is full. When the ring is full, the executing threads wait for the writer, so that no record is lost unless this AuditLog is closed or the writer has stopped.
+ * A record which cannot be written is dropped, and the writer goes on with the next record.
+ * The records reach the page cache once they are written, so they survive a crash of the process but not of the system unless {@link #force()} is called.
+ *
+ * @see AuditLogReader
+ * @see top.focess.command.CommandRegistry#setAuditLog(AuditLog)
+ */
+public class AuditLog implements AutoCloseable {
+
+    /**
+     * The magic number at the start of a segment, "FCAL"
+     */
+    static final int MAGIC = 0x4643414C;
+
+    static final int VERSION = 1;
+
+    static final int HEADER_SIZE = 8;
+
+    static final Pattern SEGMENT_NAME = Pattern.compile("audit-(\\d+)\\.log");
+
+    /**
+     * The tail of a ring which no longer accepts records, every slot looks full for it
+     */
+    private static final long SEALED = Long.MAX_VALUE;
+
+    private static final AtomicInteger LOG_ID = new AtomicInteger();
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final Slot[] slots;
+
+    private final int mask;
+
+    /**
+     * The sequence of the next slot to be claimed by the executing threads, {@link #SEALED} after the writer has stopped
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * The sequence of the next slot to be written, only accessed by the writer thread
+     */
+    private long head;
+
+    private final AtomicBoolean sleeping = new AtomicBoolean();
+
+    private final AtomicLong written = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final AtomicLong stalled = new AtomicLong();
+
+    private final Thread thread;
+
+    private int segmentIndex;
+
+    private FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    @Nullable
+    private volatile Throwable exception;
+
+    private volatile boolean forceRequested;
+
+    private volatile boolean closed;
+
+    /**
+     * Instance an AuditLog with segments of 64 MiB and a ring of 65536 records
+     *
+     * @param directory the directory of the segment files
+     * @throws IOException if the directory or the first segment cannot be created
+     */
+    public AuditLog(@NotNull final Path directory) throws IOException {
+        this(directory, 64 * 1024 * 1024, 1 << 16);
+    }
+
+    /**
+     * Instance an AuditLog. The records are written into new segments after the existing ones in the directory.
+     *
+     * @param directory   the directory of the segment files
+     * @param segmentSize the size of a segment file in bytes
+     * @param capacity    the number of the records the ring holds, rounded up to a power of two
+     * @throws IOException              if the directory or the first segment cannot be created
+     * @throws IllegalArgumentException if the segment size is less than 4 KiB or the capacity is not positive
+     */
+    public AuditLog(@NotNull final Path directory, final int segmentSize, final int capacity) throws IOException {
+        if (segmentSize < 4096 || capacity <= 0)
+            throw new IllegalArgumentException("Segment size must be at least 4096 and capacity must be positive");
+        this.directory = Files.createDirectories(directory);
+        this.segmentSize = segmentSize;
+        final int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new Slot[size];
+        for (int i = 0; i < size; i++)
+            this.slots[i] = new Slot(i);
+        this.mask = size - 1;
+        this.segmentIndex = lastSegmentIndex(this.directory);
+        this.rotate();
+        this.thread = new Thread(this::work, "AuditLog-" + LOG_ID.incrementAndGet());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    private static int lastSegmentIndex(@NotNull final Path directory) throws IOException {
+        int index = 0;
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+            for (final Path path : stream) {
+                final Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches())
+                    index = Math.max(index, Integer.parseInt(matcher.group(1)));
+            }
+        }
+        return index;
+    }
+
+    @NotNull
+    static String segmentName(final int index) {
+        return String.format("audit-%08d.log", index);
+    }
+
+    /**
+     * Record an execution of the command
+     *
+     * @param sender    the executor
+     * @param command   the command
+     * @param args      the arguments of the execution
+     * @param result    the command result
+     * @param startTime the {@link System#nanoTime()} when the execution started
+     */
+    public void record(@NotNull final CommandSender sender, @NotNull final Command command, @NotNull final String[] args, @NotNull final CommandResult result, final long startTime) {
+        final long duration = System.nanoTime() - startTime;
+        final long timestamp = System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(duration);
+        if (this.closed) {
+            this.dropped.incrementAndGet();
+            return;
+        }
+        final Slot slot = this.claim();
+        if (slot == null) {
+            this.dropped.incrementAndGet();
+            return;
+        }
+        slot.timestamp = timestamp;
+        slot.duration = duration;
+        slot.permission = sender.getPermission();
+        slot.sender = sender.getIdentity();
+        slot.command = command.getName();
+        slot.args = args;
+        slot.result = result;
+        // publish the slot to the writer
+        slot.sequence = slot.claimed + 1;
+        if (this.sleeping.get() && this.sleeping.compareAndSet(true, false))
+            LockSupport.unpark(this.thread);
+    }
+
+    @Nullable
+    private Slot claim() {
+        boolean stalled = false;
+        while (true) {
+            final long tail = this.tail.get();
+            final Slot slot = this.slots[(int) tail & this.mask];
+            final long sequence = slot.sequence;
+            if (sequence == tail) {
+                if (this.tail.compareAndSet(tail, tail + 1)) {
+                    slot.claimed = tail;
+                    return slot;
+                }
+            } else if (sequence < tail) {
+                // the ring is full or sealed, wait for the writer unless it will not free a slot
+                if (this.closed || !this.thread.isAlive())
+                    return null;
+                if (!stalled) {
+                    stalled = true;
+                    this.stalled.incrementAndGet();
+                }
+                LockSupport.unpark(this.thread);
+                LockSupport.parkNanos(this, 10_000);
+            }
+        }
+    }
+
+    private void work() {
+        try {
+            while (true) {
+                final Slot slot = this.slots[(int) this.head & this.mask];
+                if (slot.sequence == this.head + 1) {
+                    try {
+                        this.write(slot);
+                    } catch (final Throwable e) {
+                        this.exception = e;
+                        this.dropped.incrementAndGet();
+                    }
+                    slot.sender = null;
+                    slot.args = null;
+                    // free the slot for the next round
+                    slot.sequence = this.head + this.slots.length;
+                    this.head++;
+                    continue;
+                }
+                if (this.forceRequested) {
+                    this.forceRequested = false;
+                    this.forceSegment();
+                }
+                // seal the ring, so that a record claimed after this check is dropped instead of being left in the ring
+                if (this.closed && this.tail.compareAndSet(this.head, SEALED)) {
+                    this.forceSegment();
+                    this.closeSegment();
+                    return;
+                }
+                this.sleeping.set(true);
+                // check again after announcing sleeping, so that a record published before it is not missed
+                if (slot.sequence != this.head + 1 && !this.closed && !this.forceRequested)
+                    LockSupport.parkNanos(this, 100_000_000);
+                this.sleeping.set(false);
+            }
+        } finally {
+            // the claimed records are never written if the writer stops unexpectedly
+            final long tail = this.tail.getAndSet(SEALED);
+            if (tail != SEALED)
+                this.dropped.addAndGet(tail - this.head);
+        }
+    }
+
+    private void write(@NotNull final Slot slot) {
+        final byte[] sender = String.valueOf(slot.sender).getBytes(StandardCharsets.UTF_8);
+        final byte[] command = slot.command.getBytes(StandardCharsets.UTF_8);
+        final byte[][] args = new byte[slot.args.length][];
+        // length, timestamp, duration, permission, result, sender, command, argument count
+        int length = 4 + 8 + 8 + 1 + 4 + 4 + sender.length + 4 + command.length + 4;
+        for (int i = 0; i < args.length; i++) {
+            args[i] = slot.args[i].getBytes(StandardCharsets.UTF_8);
+            length += 4 + args[i].length;
+        }
+        // a zero length after the last record marks the end of the segment
+        if (HEADER_SIZE + length + 4 > this.segmentSize) {
+            this.dropped.incrementAndGet();
+            return;
+        }
+        try {
+            if (this.buffer.position() + length + 4 > this.segmentSize)
+                this.rotate();
+        } catch (final IOException e) {
+            this.exception = e;
+            this.dropped.incrementAndGet();
+            return;
+        }
+        final MappedByteBuffer buffer = this.buffer;
+        final int position = buffer.position();
+        try {
+            // cast to Buffer, so that the method exists in Java 8
+            ((Buffer) buffer).position(position + 4);
+            buffer.putLong(slot.timestamp);
+            buffer.putLong(slot.duration);
+            buffer.put((byte) slot.permission.ordinal());
+            buffer.putInt(slot.result.getValue());
+            putBytes(buffer, sender);
+            putBytes(buffer, command);
+            buffer.putInt(args.length);
+            for (final byte[] arg : args)
+                putBytes(buffer, arg);
+        } catch (final RuntimeException e) {
+            // clear the partial record, so that the end of the segment is still marked at its position
+            for (int i = position, end = buffer.position(); i < end; i++)
+                buffer.put(i, (byte) 0);
+            ((Buffer) buffer).position(position);
+            throw e;
+        }
+        // the length is written last, so that a reader never sees a partial record
+        buffer.putInt(position, length);
+        this.written.incrementAndGet();
+    }
+
+    private static void putBytes(@NotNull final MappedByteBuffer buffer, @NotNull final byte[] bytes) {
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private void rotate() throws IOException {
+        if (this.buffer != null) {
+            this.forceSegment();
+            this.closeSegment();
+        }
+        final Path path = this.directory.resolve(segmentName(++this.segmentIndex));
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, this.segmentSize);
+        this.buffer.putInt(MAGIC);
+        this.buffer.putInt(VERSION);
+    }
+
+    private void forceSegment() {
+        try {
+            this.buffer.force();
+        } catch (final Throwable e) {
+            this.exception = e;
+        }
+    }
+
+    private void closeSegment() {
+        try {
+            this.channel.close();
+        } catch (final IOException e) {
+            this.exception = e;
+        }
+    }
+
+    /**
+     * Request the writer to flush the written records of the current segment to the storage device
+     */
+    public void force() {
+        this.forceRequested = true;
+        LockSupport.unpark(this.thread);
+    }
+
+    /**
+     * Close this AuditLog. The queued records are still written, and the new records are dropped.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting for the writer
+     */
+    @Override
+    public void close() throws InterruptedException {
+        this.closed = true;
+        LockSupport.unpark(this.thread);
+        this.thread.join();
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Get the number of the records written into the segments
+     *
+     * @return the number of the written records
+     */
+    public long getWrittenCount() {
+        return this.written.get();
+    }
+
+    /**
+     * Get the number of the records dropped because this AuditLog is closed, the writer has stopped, the record is larger than a segment, or the record cannot be written
+     *
+     * @return the number of the dropped records
+     */
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Get the number of the records which waited for the writer because the ring was full
+     *
+     * @return the number of the stalled records
+     */
+    public long getStalledCount() {
+        return this.stalled.get();
+    }
+
+    /**
+     * Get the last exception or error that occurred when writing the segments
+     *
+     * @return the last exception or error, null if there is none
+     */
+    @Nullable
+    public Throwable getException() {
+        return this.exception;
+    }
+
+    private static final class Slot {
+
+        /**
+         * The sequence of the slot. It equals the claimable sequence when the slot is free, and the claimed sequence plus one when the slot is published.
+         */
+        private volatile long sequence;
+
+        private long claimed;
+
+        private long timestamp;
+
+        private long duration;
+
+        private CommandPermission permission;
+
+        private Object sender;
+
+        private String command;
+
+        private String[] args;
+
+        private CommandResult result;
+
+        private Slot(final long sequence) {
+            this.sequence = sequence;
+        }
+    }
+}
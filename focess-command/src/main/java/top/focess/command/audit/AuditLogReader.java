@@ -0,0 +1,158 @@
+package top.focess.command.audit;
+
+import com.google.common.collect.Lists;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import top.focess.command.CommandPermission;
+import top.focess.command.CommandResult;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+
+/**
+ * Decode the segments written by an {@link AuditLog}, and query the records by the time range and the command name.
+ * <p>
+ * The segments can be read while the AuditLog is writing them, and the records are read in the order they are written.
+ * It can also be run from the command line: {@code AuditLogReader <directory> [from] [to] [command]}, where the times are ISO-8601 instants or milliseconds since the epoch.
+ */
+public class AuditLogReader {
+
+    private static final CommandPermission[] PERMISSIONS = CommandPermission.values();
+
+    private static final CommandResult[] RESULTS = CommandResult.values();
+
+    private final Path directory;
+
+    /**
+     * Instance an AuditLogReader
+     *
+     * @param directory the directory of the segment files
+     */
+    public AuditLogReader(@NotNull final Path directory) {
+        this.directory = directory;
+    }
+
+    public static void main(final String[] args) throws IOException {
+        if (args.length == 0 || args.length > 4) {
+            System.err.println("Usage: AuditLogReader <directory> [from] [to] [command]");
+            System.exit(1);
+        }
+        final long from = args.length > 1 ? parseTime(args[1]) : Long.MIN_VALUE;
+        final long to = args.length > 2 ? parseTime(args[2]) : Long.MAX_VALUE;
+        final String command = args.length > 3 ? args[3] : null;
+        new AuditLogReader(Paths.get(args[0])).forEach(from, to, command, auditRecord -> System.out.println(Instant.ofEpochMilli(auditRecord.getTimestamp()) + " " + auditRecord));
+    }
+
+    private static long parseTime(@NotNull final String time) {
+        try {
+            return Long.parseLong(time);
+        } catch (final NumberFormatException e) {
+            return Instant.parse(time).toEpochMilli();
+        }
+    }
+
+    /**
+     * Get the records in the time range
+     *
+     * @param from    the min start time in milliseconds since the epoch, inclusive
+     * @param to      the max start time in milliseconds since the epoch, exclusive
+     * @param command the name of the command ignoring case, null for all the commands
+     * @return the records in the order they are written
+     * @throws IOException if a segment cannot be read or is not a segment of an AuditLog
+     */
+    @NotNull
+    public List<AuditRecord> query(final long from, final long to, @Nullable final String command) throws IOException {
+        final List<AuditRecord> records = Lists.newArrayList();
+        this.forEach(from, to, command, records::add);
+        return records;
+    }
+
+    /**
+     * Read the records in the time range one by one
+     *
+     * @param from     the min start time in milliseconds since the epoch, inclusive
+     * @param to       the max start time in milliseconds since the epoch, exclusive
+     * @param command  the name of the command ignoring case, null for all the commands
+     * @param consumer the consumer of the records in the order they are written
+     * @throws IOException if a segment cannot be read or is not a segment of an AuditLog
+     */
+    public void forEach(final long from, final long to, @Nullable final String command, @NotNull final Consumer<AuditRecord> consumer) throws IOException {
+        for (final Path segment : this.getSegments())
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                if (buffer.limit() < AuditLog.HEADER_SIZE || buffer.getInt(0) != AuditLog.MAGIC || buffer.getInt(4) != AuditLog.VERSION)
+                    throw new IOException("File " + segment + " is not a segment of AuditLog");
+                read(buffer, from, to, command, consumer);
+            }
+    }
+
+    @NotNull
+    private List<Path> getSegments() throws IOException {
+        final Map<Integer, Path> segments = new TreeMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.directory)) {
+            for (final Path path : stream) {
+                final Matcher matcher = AuditLog.SEGMENT_NAME.matcher(path.getFileName().toString());
+                if (matcher.matches())
+                    segments.put(Integer.parseInt(matcher.group(1)), path);
+            }
+        }
+        return Lists.newArrayList(segments.values());
+    }
+
+    private static void read(@NotNull final MappedByteBuffer buffer, final long from, final long to, @Nullable final String command, @NotNull final Consumer<AuditRecord> consumer) {
+        int position = AuditLog.HEADER_SIZE;
+        while (position + 4 <= buffer.limit()) {
+            final int length = buffer.getInt(position);
+            // a zero length marks the end of the written records
+            if (length <= 0 || position + length > buffer.limit())
+                return;
+            final long timestamp = buffer.getLong(position + 4);
+            if (timestamp >= from && timestamp < to) {
+                // cast to Buffer, so that the method exists in Java 8
+                ((Buffer) buffer).position(position + 12);
+                final long duration = buffer.getLong();
+                final CommandPermission permission = PERMISSIONS[buffer.get()];
+                final int result = buffer.getInt();
+                final String sender = getString(buffer);
+                final String name = getString(buffer);
+                if (command == null || command.equalsIgnoreCase(name)) {
+                    final int count = buffer.getInt();
+                    final List<String> arguments = Lists.newArrayListWithCapacity(count);
+                    for (int i = 0; i < count; i++)
+                        arguments.add(getString(buffer));
+                    consumer.accept(new AuditRecord(timestamp, duration, permission, getResult(result), sender, name, arguments));
+                }
+            }
+            position += length;
+        }
+    }
+
+    @NotNull
+    private static String getString(@NotNull final MappedByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Nullable
+    private static CommandResult getResult(final int value) {
+        for (final CommandResult result : RESULTS)
+            if (result.getValue() == value)
+                return result;
+        return null;
+    }
+}
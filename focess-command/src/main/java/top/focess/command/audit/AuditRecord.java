@@ -0,0 +1,102 @@
+package top.focess.command.audit;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.UnmodifiableView;
+import top.focess.command.CommandPermission;
+import top.focess.command.CommandResult;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents an execution of a command decoded from the segments of an {@link AuditLog}
+ */
+public final class AuditRecord {
+
+    private final long timestamp;
+
+    private final long duration;
+
+    private final CommandPermission permission;
+
+    @Nullable
+    private final CommandResult result;
+
+    private final String sender;
+
+    private final String command;
+
+    private final List<String> arguments;
+
+    AuditRecord(final long timestamp, final long duration, @NotNull final CommandPermission permission, @Nullable final CommandResult result, @NotNull final String sender, @NotNull final String command, @NotNull final List<String> arguments) {
+        this.timestamp = timestamp;
+        this.duration = duration;
+        this.permission = permission;
+        this.result = result;
+        this.sender = sender;
+        this.command = command;
+        this.arguments = Collections.unmodifiableList(arguments);
+    }
+
+    /**
+     * Get the time the execution started
+     *
+     * @return the start time in milliseconds since the epoch
+     */
+    public long getTimestamp() {
+        return this.timestamp;
+    }
+
+    /**
+     * Get the time the execution took
+     *
+     * @param unit the time unit
+     * @return the duration of the execution
+     */
+    public long getDuration(@NotNull final TimeUnit unit) {
+        return unit.convert(this.duration, TimeUnit.NANOSECONDS);
+    }
+
+    @NotNull
+    public CommandPermission getPermission() {
+        return this.permission;
+    }
+
+    /**
+     * Get the command result
+     *
+     * @return the command result, null if the value is unknown to this version
+     */
+    @Nullable
+    public CommandResult getResult() {
+        return this.result;
+    }
+
+    /**
+     * Get the identity of the sender
+     *
+     * @return the String of the identity of the sender
+     */
+    @NotNull
+    public String getSender() {
+        return this.sender;
+    }
+
+    @NotNull
+    public String getCommand() {
+        return this.command;
+    }
+
+    @NotNull
+    @UnmodifiableView
+    public List<String> getArguments() {
+        return this.arguments;
+    }
+
+    @Override
+    public String toString() {
+        return this.timestamp + " " + this.permission + " " + this.sender + " " + this.command + " " + this.arguments + " " + this.result + " " + this.getDuration(TimeUnit.MICROSECONDS) + "us";
+    }
+}
@@ -0,0 +1,100 @@
+package top.focess.command.converter;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import top.focess.command.DataConverter;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simplify the {@link DataConverter} class for the expensive conversions.
+ * Implement the load method. The result of converting a String argument is cached, so that the accept and convert methods only load it once.
+ * The String argument is accepted if the loaded result is not null and there is no exception in loading it, and the rejected String arguments are cached too.
+ *
+ * @param <T> the target type
+ */
+public abstract class CachedDataConverter<T> extends DataConverter<T> {
+
+    private final LoadingCache<String, Optional<T>> cache;
+
+    /**
+     * Instance a CachedDataConverter which caches at most 1024 String arguments
+     */
+    public CachedDataConverter() {
+        this(1024, 0, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Instance a CachedDataConverter
+     *
+     * @param maximumSize the max number of the cached String arguments
+     * @param ttl         the time to live of a cached result, 0 to keep it until it is evicted by size
+     * @param unit        the time unit of the ttl
+     */
+    public CachedDataConverter(final long maximumSize, final long ttl, @NotNull final TimeUnit unit) {
+        final CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder().maximumSize(maximumSize).recordStats();
+        if (ttl > 0)
+            builder.expireAfterWrite(ttl, unit);
+        this.cache = builder.build(new CacheLoader<String, Optional<T>>() {
+            @Override
+            public Optional<T> load(@NotNull final String arg) {
+                try {
+                    return Optional.ofNullable(CachedDataConverter.this.load(arg));
+                } catch (final Exception e) {
+                    return Optional.empty();
+                }
+            }
+        });
+    }
+
+    /**
+     * Load the target argument from the String argument
+     *
+     * @param arg the target argument in String
+     * @return the target argument, null if the String argument cannot convert to this target type
+     * @throws Exception if the String argument cannot convert to this target type
+     */
+    @Nullable
+    protected abstract T load(String arg) throws Exception;
+
+    @Override
+    public boolean accept(final String arg) {
+        return this.cache.getUnchecked(arg).isPresent();
+    }
+
+    @Override
+    public T convert(final String arg) {
+        return this.cache.getUnchecked(arg).orElse(null);
+    }
+
+    /**
+     * Discard the cached result of the String argument
+     *
+     * @param arg the target argument in String
+     */
+    public void invalidate(@NotNull final String arg) {
+        this.cache.invalidate(arg);
+    }
+
+    /**
+     * Discard all the cached results
+     */
+    public void invalidateAll() {
+        this.cache.invalidateAll();
+    }
+
+    /**
+     * Get the statistics of the cache, including the hit rate and the load time
+     *
+     * @return the statistics of the cache
+     */
+    @NotNull
+    public CacheStats getStats() {
+        return this.cache.stats();
+    }
+}
@@ -49,4 +49,13 @@ public class BooleanBuffer extends DataBuffer<Boolean> {
     public void flip() {
         this.byteBuffer.flip();
     }
+
+    /**
+     * Get boolean element in the buffer in order without boxing
+     *
+     * @return boolean element in the buffer in order
+     */
+    public boolean getBoolean() {
+        return this.byteBuffer.get() != 0;
+    }
 }
@@ -47,4 +47,13 @@ public class DoubleBuffer extends DataBuffer<Double> {
     public Double get(final int index) {
         return this.buffer.get(index);
     }
+
+    /**
+     * Get double element in the buffer in order without boxing
+     *
+     * @return double element in the buffer in order
+     */
+    public double getDouble() {
+        return this.buffer.get();
+    }
 }
@@ -47,4 +47,13 @@ public class IntBuffer extends DataBuffer<Integer> {
     public Integer get(final int index) {
         return this.buffer.get(index);
     }
+
+    /**
+     * Get int element in the buffer in order without boxing
+     *
+     * @return int element in the buffer in order
+     */
+    public int getInt() {
+        return this.buffer.get();
+    }
 }
@@ -47,4 +47,13 @@ public class LongBuffer extends DataBuffer<Long> {
     public Long get(final int index) {
         return this.buffer.get(index);
     }
+
+    /**
+     * Get long element in the buffer in order without boxing
+     *
+     * @return long element in the buffer in order
+     */
+    public long getLong() {
+        return this.buffer.get();
+    }
 }
@@ -0,0 +1,173 @@
+package top.focess.command.limit;
+
+import org.jetbrains.annotations.NotNull;
+import top.focess.command.CommandPermission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limit the number of concurrent executions with a limit adapted to the latency, like the AIMD limit of TCP congestion control.
+ * <p>
+ * The limit grows by one per round of executions while the latency is below the threshold and the limit is in use, and is multiplied by the backoff ratio when an execution is slower than the threshold or is dropped.
+ * The executions of {@link CommandPermission#MEMBER} can only use a part of the limit, so that they are shed first and the rest of the limit is reserved for the higher permissions.
+ */
+public class AdaptiveLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    /**
+     * The latency threshold in nanoseconds
+     */
+    private final long latencyThreshold;
+
+    private final double backoffRatio;
+
+    private final double reservedRatio;
+
+    private final AtomicInteger inflight = new AtomicInteger();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * The raw long bits of the current limit, updated by compare-and-set
+     */
+    private final AtomicLong limit;
+
+    /**
+     * The last time the limit is decreased
+     */
+    private final AtomicLong lastDecrease;
+
+    /**
+     * Instance an AdaptiveLimiter which reserves 20% of the limit for the higher permissions
+     *
+     * @param initialLimit     the initial limit
+     * @param minLimit         the min limit
+     * @param maxLimit         the max limit
+     * @param latencyThreshold the latency above which the limit is decreased
+     * @param unit             the time unit of the latency threshold
+     * @throws IllegalArgumentException if the limits are not positive or not ordered, or the latency threshold is not positive
+     */
+    public AdaptiveLimiter(final int initialLimit, final int minLimit, final int maxLimit, final long latencyThreshold, @NotNull final TimeUnit unit) {
+        this(initialLimit, minLimit, maxLimit, latencyThreshold, unit, 0.9, 0.2);
+    }
+
+    /**
+     * Instance an AdaptiveLimiter
+     *
+     * @param initialLimit     the initial limit
+     * @param minLimit         the min limit
+     * @param maxLimit         the max limit
+     * @param latencyThreshold the latency above which the limit is decreased
+     * @param unit             the time unit of the latency threshold
+     * @param backoffRatio     the ratio the limit is multiplied by when it is decreased, in (0, 1)
+     * @param reservedRatio    the ratio of the limit the executions of {@link CommandPermission#MEMBER} cannot use, in [0, 1)
+     * @throws IllegalArgumentException if the limits are not positive or not ordered, the latency threshold is not positive, or the ratios are out of range
+     */
+    public AdaptiveLimiter(final int initialLimit, final int minLimit, final int maxLimit, final long latencyThreshold, @NotNull final TimeUnit unit, final double backoffRatio, final double reservedRatio) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit)
+            throw new IllegalArgumentException("Limits must be positive and min limit <= initial limit <= max limit");
+        if (latencyThreshold <= 0)
+            throw new IllegalArgumentException("Latency threshold must be positive");
+        if (backoffRatio <= 0 || backoffRatio >= 1 || reservedRatio < 0 || reservedRatio >= 1)
+            throw new IllegalArgumentException("Backoff ratio must be in (0, 1) and reserved ratio must be in [0, 1)");
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThreshold = unit.toNanos(latencyThreshold);
+        this.backoffRatio = backoffRatio;
+        this.reservedRatio = reservedRatio;
+        this.limit = new AtomicLong(Double.doubleToRawLongBits(initialLimit));
+        this.lastDecrease = new AtomicLong(System.nanoTime() - this.latencyThreshold - 1);
+    }
+
+    /**
+     * Try to start an execution of the priority. An admitted execution must be released by {@link #release(long, boolean)}.
+     *
+     * @param priority the priority of the execution
+     * @return true if the execution is admitted, false if it is rejected
+     */
+    public boolean tryAcquire(@NotNull final CommandPermission priority) {
+        final int limit = this.getLimit(priority);
+        while (true) {
+            final int current = this.inflight.get();
+            if (current >= limit) {
+                this.rejected.incrementAndGet();
+                return false;
+            }
+            if (this.inflight.compareAndSet(current, current + 1))
+                return true;
+        }
+    }
+
+    /**
+     * Finish an admitted execution and adapt the limit to its latency
+     *
+     * @param startTime the {@link System#nanoTime()} when the execution is admitted
+     * @param dropped   true if the execution is dropped, for example it timed out
+     */
+    public void release(final long startTime, final boolean dropped) {
+        final int inflight = this.inflight.getAndDecrement();
+        final long now = System.nanoTime();
+        final long latency = now - startTime;
+        if (dropped || latency > this.latencyThreshold) {
+            // decrease at most once per threshold, so that a burst of slow executions is one congestion event
+            final long lastDecrease = this.lastDecrease.get();
+            if (now - lastDecrease > this.latencyThreshold && this.lastDecrease.compareAndSet(lastDecrease, now))
+                this.updateLimit(true);
+        } else if (inflight * 2 >= this.getRawLimit())
+            // grow only when the limit is in use
+            this.updateLimit(false);
+    }
+
+    private void updateLimit(final boolean decrease) {
+        while (true) {
+            final long bits = this.limit.get();
+            final double limit = Double.longBitsToDouble(bits);
+            final double updated = decrease ? Math.max(this.minLimit, limit * this.backoffRatio) : Math.min(this.maxLimit, limit + 1 / limit);
+            if (updated == limit || this.limit.compareAndSet(bits, Double.doubleToRawLongBits(updated)))
+                return;
+        }
+    }
+
+    private double getRawLimit() {
+        return Double.longBitsToDouble(this.limit.get());
+    }
+
+    private int getLimit(@NotNull final CommandPermission priority) {
+        final double limit = this.getRawLimit();
+        if (priority.getPriority() > CommandPermission.MEMBER.getPriority())
+            return (int) limit;
+        return Math.max(1, (int) (limit * (1 - this.reservedRatio)));
+    }
+
+    /**
+     * Get the current limit
+     *
+     * @return the current limit
+     */
+    public int getLimit() {
+        return (int) this.getRawLimit();
+    }
+
+    /**
+     * Get the number of the running executions
+     *
+     * @return the number of the running executions
+     */
+    public int getInflight() {
+        return this.inflight.get();
+    }
+
+    /**
+     * Get the number of the rejected executions
+     *
+     * @return the number of the rejected executions
+     */
+    public long getRejectedCount() {
+        return this.rejected.get();
+    }
+}
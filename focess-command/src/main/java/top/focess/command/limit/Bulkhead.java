@@ -0,0 +1,153 @@
+package top.focess.command.limit;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limit the number of concurrent executions, so that a slow command cannot occupy all the threads.
+ * <p>
+ * A permit is acquired by a lock-free compare-and-set. When there is no permit, the execution is rejected at once, or waits for a permit at most the max wait.
+ */
+public class Bulkhead {
+
+    private final int maxConcurrency;
+
+    /**
+     * The nanos to wait for a permit, 0 to reject at once
+     */
+    private final long maxWait;
+
+    private final AtomicInteger concurrency = new AtomicInteger();
+
+    private final AtomicInteger peakConcurrency = new AtomicInteger();
+
+    private final AtomicInteger waiters = new AtomicInteger();
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    /**
+     * Instance a Bulkhead which rejects the executions at once when it is full
+     *
+     * @param maxConcurrency the max number of concurrent executions
+     * @throws IllegalArgumentException if the max concurrency is not positive
+     */
+    public Bulkhead(final int maxConcurrency) {
+        this(maxConcurrency, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Instance a Bulkhead
+     *
+     * @param maxConcurrency the max number of concurrent executions
+     * @param maxWait        the max time to wait for a permit when it is full, 0 to reject at once
+     * @param unit           the time unit of the max wait
+     * @throws IllegalArgumentException if the max concurrency is not positive or the max wait is negative
+     */
+    public Bulkhead(final int maxConcurrency, final long maxWait, @NotNull final TimeUnit unit) {
+        if (maxConcurrency <= 0 || maxWait < 0)
+            throw new IllegalArgumentException("Max concurrency must be positive and max wait must not be negative");
+        this.maxConcurrency = maxConcurrency;
+        this.maxWait = unit.toNanos(maxWait);
+    }
+
+    /**
+     * Try to acquire a permit, wait at most the max wait if it is full
+     *
+     * @return true if the permit is acquired, false if it is rejected
+     */
+    public boolean tryAcquire() {
+        if (this.acquire())
+            return true;
+        if (this.maxWait > 0 && this.await())
+            return true;
+        this.rejected.incrementAndGet();
+        return false;
+    }
+
+    private boolean acquire() {
+        while (true) {
+            final int current = this.concurrency.get();
+            if (current >= this.maxConcurrency)
+                return false;
+            if (this.concurrency.compareAndSet(current, current + 1)) {
+                int peak;
+                while ((peak = this.peakConcurrency.get()) < current + 1 && !this.peakConcurrency.compareAndSet(peak, current + 1)) ;
+                return true;
+            }
+        }
+    }
+
+    private boolean await() {
+        final long deadline = System.nanoTime() + this.maxWait;
+        this.waiters.incrementAndGet();
+        try {
+            synchronized (this) {
+                while (!this.acquire()) {
+                    final long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0)
+                        return false;
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                }
+                return true;
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            this.waiters.decrementAndGet();
+        }
+    }
+
+    /**
+     * Release a permit acquired by {@link #tryAcquire()}
+     */
+    public void release() {
+        this.concurrency.decrementAndGet();
+        // only notify when there are waiters, so that the fast path never locks
+        if (this.waiters.get() > 0)
+            synchronized (this) {
+                this.notify();
+            }
+    }
+
+    /**
+     * Get the number of the running executions
+     *
+     * @return the number of the running executions
+     */
+    public int getConcurrency() {
+        return this.concurrency.get();
+    }
+
+    /**
+     * Get the max number of the running executions at the same time since this Bulkhead is created or the peak is reset
+     *
+     * @return the peak number of the running executions
+     */
+    public int getPeakConcurrency() {
+        return this.peakConcurrency.get();
+    }
+
+    /**
+     * Reset the peak number of the running executions to the current number
+     */
+    public void resetPeakConcurrency() {
+        this.peakConcurrency.set(this.concurrency.get());
+    }
+
+    /**
+     * Get the number of the rejected executions
+     *
+     * @return the number of the rejected executions
+     */
+    public long getRejectedCount() {
+        return this.rejected.get();
+    }
+
+    public int getMaxConcurrency() {
+        return this.maxConcurrency;
+    }
+}
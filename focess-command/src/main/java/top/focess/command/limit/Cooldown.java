@@ -0,0 +1,180 @@
+package top.focess.command.limit;
+
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import top.focess.command.CommandSender;
+import top.focess.command.schedule.TimingWheel;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Limit a sender to execute once in a cooldown duration.
+ * <p>
+ * Checking the cooldown of a sender is a single map lookup. The expirations of the cooldowns are tracked in a {@link TimingWheel},
+ * so that the expired cooldowns are reclaimed without scanning and the memory is proportional to the active cooldowns.
+ */
+public class Cooldown {
+
+    private static final int WHEEL_SIZE = 64;
+
+    private final Map<Object, Entry> cooldowns = Maps.newConcurrentMap();
+
+    private final TimingWheel<Entry> wheel;
+
+    private final Function<CommandSender, Object> identity;
+
+    /**
+     * The cooldown duration in nanos
+     */
+    private final long duration;
+
+    private final long start = System.nanoTime();
+
+    /**
+     * The earliest time the wheel may have expired cooldowns, used to skip locking the wheel
+     */
+    private volatile long nextExpiration = Long.MAX_VALUE;
+
+    /**
+     * Instance a Cooldown keyed by {@link CommandSender#getIdentity()}
+     *
+     * @param duration the cooldown duration
+     * @param unit     the time unit of the duration
+     * @throws IllegalArgumentException if the duration is not positive
+     */
+    public Cooldown(final long duration, @NotNull final TimeUnit unit) {
+        this(duration, unit, CommandSender::getIdentity);
+    }
+
+    /**
+     * Instance a Cooldown
+     *
+     * @param duration the cooldown duration
+     * @param unit     the time unit of the duration
+     * @param identity the getter of the sender identity
+     * @throws IllegalArgumentException if the duration is not positive
+     */
+    public Cooldown(final long duration, @NotNull final TimeUnit unit, @NotNull final Function<CommandSender, Object> identity) {
+        if (duration <= 0)
+            throw new IllegalArgumentException("Duration must be positive");
+        this.duration = unit.toNanos(duration);
+        this.identity = identity;
+        // the cooldowns are reclaimed at most one tick later than they expire
+        this.wheel = new TimingWheel<>(Math.max(TimeUnit.MILLISECONDS.toNanos(1), this.duration / WHEEL_SIZE), TimeUnit.NANOSECONDS, WHEEL_SIZE, 0);
+    }
+
+    /**
+     * Try to start the cooldown of the sender
+     *
+     * @param sender the sender
+     * @return true if the sender is not cooling down and the cooldown is started, false otherwise
+     */
+    public boolean tryAcquire(@NotNull final CommandSender sender) {
+        final long now = this.now();
+        this.expire(now);
+        final Object key = this.identity.apply(sender);
+        final Entry entry = this.cooldowns.get(key);
+        if (entry != null && entry.deadline > now)
+            return false;
+        final Entry newEntry = new Entry(key, now + this.duration);
+        if (entry == null ? this.cooldowns.putIfAbsent(key, newEntry) != null : !this.cooldowns.replace(key, entry, newEntry))
+            return false;
+        synchronized (this.wheel) {
+            if (entry != null && entry.timeout != null)
+                this.wheel.cancel(entry.timeout);
+            // the entry may be removed by reset before it is scheduled
+            if (this.cooldowns.get(key) == newEntry)
+                newEntry.timeout = this.wheel.add(newEntry, newEntry.deadline);
+            this.nextExpiration = this.wheel.getNextExpiration();
+        }
+        return true;
+    }
+
+    /**
+     * Get the remaining cooldown of the sender
+     *
+     * @param sender the sender
+     * @param unit   the time unit of the remaining cooldown
+     * @return the remaining cooldown, 0 if the sender is not cooling down
+     */
+    public long getRemaining(@NotNull final CommandSender sender, @NotNull final TimeUnit unit) {
+        final Entry entry = this.cooldowns.get(this.identity.apply(sender));
+        if (entry == null)
+            return 0;
+        return unit.convert(Math.max(0, entry.deadline - this.now()), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Reset the cooldown of the sender
+     *
+     * @param sender the sender
+     */
+    public void reset(@NotNull final CommandSender sender) {
+        final Entry entry = this.cooldowns.remove(this.identity.apply(sender));
+        if (entry != null)
+            synchronized (this.wheel) {
+                if (entry.timeout != null)
+                    this.wheel.cancel(entry.timeout);
+            }
+    }
+
+    /**
+     * Reset all the cooldowns
+     */
+    public void clear() {
+        synchronized (this.wheel) {
+            for (final Entry entry : this.cooldowns.values())
+                if (entry.timeout != null)
+                    this.wheel.cancel(entry.timeout);
+            this.cooldowns.clear();
+            this.nextExpiration = this.wheel.getNextExpiration();
+        }
+    }
+
+    /**
+     * Get the number of the cooldowns that are not reclaimed
+     *
+     * @return the number of the cooldowns that are not reclaimed
+     */
+    public int size() {
+        return this.cooldowns.size();
+    }
+
+    public long getDuration(@NotNull final TimeUnit unit) {
+        return unit.convert(this.duration, TimeUnit.NANOSECONDS);
+    }
+
+    private long now() {
+        return System.nanoTime() - this.start;
+    }
+
+    private void expire(final long now) {
+        if (now < this.nextExpiration)
+            return;
+        synchronized (this.wheel) {
+            this.wheel.advance(now, entry -> {
+                entry.timeout = null;
+                this.cooldowns.remove(entry.key, entry);
+            });
+            this.nextExpiration = this.wheel.getNextExpiration();
+        }
+    }
+
+    private static class Entry {
+
+        private final Object key;
+
+        private final long deadline;
+
+        @Nullable
+        private TimingWheel.Timeout<Entry> timeout;
+
+        private Entry(final Object key, final long deadline) {
+            this.key = key;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package top.focess.command.limit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.jetbrains.annotations.NotNull;
+import top.focess.command.CommandSender;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Limit the rate of executions per sender with token buckets.
+ * <p>
+ * Each sender owns a lock-free token bucket which is refilled with the given permits per interval and holds at most the given burst.
+ * The buckets are stored in a striped cache, and a bucket is evicted once it has been idle long enough to be full again, so the memory is bounded by the active senders.
+ */
+public class RateLimiter {
+
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 16;
+
+    private static final long DEFAULT_MAXIMUM_SIZE = 1 << 20;
+
+    private final Cache<Object, TokenBucket> buckets;
+
+    private final Function<CommandSender, Object> identity;
+
+    /**
+     * The nanos to refill one permit
+     */
+    private final long emissionInterval;
+
+    /**
+     * The nanos to refill the whole bucket
+     */
+    private final long capacity;
+
+    private final long start = System.nanoTime();
+
+    /**
+     * Instance a RateLimiter keyed by {@link CommandSender#getIdentity()}
+     *
+     * @param permits  the permits refilled per interval
+     * @param interval the interval
+     * @param unit     the time unit of the interval
+     * @param burst    the maximum permits a sender can hold
+     * @throws IllegalArgumentException if the permits, interval or burst is not positive
+     */
+    public RateLimiter(final int permits, final long interval, @NotNull final TimeUnit unit, final int burst) {
+        this(permits, interval, unit, burst, DEFAULT_MAXIMUM_SIZE, CommandSender::getIdentity);
+    }
+
+    /**
+     * Instance a RateLimiter
+     *
+     * @param permits     the permits refilled per interval
+     * @param interval    the interval
+     * @param unit        the time unit of the interval
+     * @param burst       the maximum permits a sender can hold
+     * @param maximumSize the maximum number of buckets kept at the same time
+     * @param identity    the getter of the sender identity
+     * @throws IllegalArgumentException if the permits, interval, burst or maximum size is not positive
+     */
+    public RateLimiter(final int permits, final long interval, @NotNull final TimeUnit unit, final int burst, final long maximumSize, @NotNull final Function<CommandSender, Object> identity) {
+        if (permits <= 0 || interval <= 0 || burst <= 0 || maximumSize <= 0)
+            throw new IllegalArgumentException("Permits, interval, burst and maximum size must be positive");
+        this.emissionInterval = Math.max(1, unit.toNanos(interval) / permits);
+        this.capacity = this.emissionInterval * burst;
+        this.identity = identity;
+        this.buckets = CacheBuilder.newBuilder()
+                .concurrencyLevel(DEFAULT_CONCURRENCY_LEVEL)
+                .maximumSize(maximumSize)
+                .expireAfterAccess(this.capacity, TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    /**
+     * Try to acquire a permit for the sender
+     *
+     * @param sender the sender
+     * @return true if the permit is acquired, false if the sender is throttled
+     */
+    public boolean tryAcquire(@NotNull final CommandSender sender) {
+        final Object key = this.identity.apply(sender);
+        final TokenBucket bucket;
+        try {
+            bucket = this.buckets.get(key, TokenBucket::new);
+        } catch (final ExecutionException e) {
+            // TokenBucket constructor never throws
+            throw new IllegalStateException(e);
+        }
+        return bucket.tryAcquire(System.nanoTime() - this.start);
+    }
+
+    /**
+     * Get the number of the buckets in use
+     *
+     * @return the number of the buckets in use
+     */
+    public long size() {
+        return this.buckets.size();
+    }
+
+    /**
+     * Remove all the buckets
+     */
+    public void clear() {
+        this.buckets.invalidateAll();
+    }
+
+    /**
+     * A token bucket in the form of the generic cell rate algorithm, the whole state is the theoretical arrival time so that it can be updated by CAS.
+     */
+    private class TokenBucket {
+
+        private final AtomicLong arrival = new AtomicLong();
+
+        private boolean tryAcquire(final long now) {
+            long arrival;
+            long next;
+            do {
+                arrival = this.arrival.get();
+                next = Math.max(arrival, now) + RateLimiter.this.emissionInterval;
+                if (next - now > RateLimiter.this.capacity)
+                    return false;
+            } while (!this.arrival.compareAndSet(arrival, next));
+            return true;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package top.focess.command.pipe;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.UnmodifiableView;
+import top.focess.command.CommandRegistry;
+import top.focess.command.CommandResult;
+import top.focess.command.CommandSender;
+import top.focess.command.IOHandler;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Execute the command lines as a pipeline, like <code>list players | filter admin | count</code>.
+ * <p>
+ * All the commands of a pipeline run concurrently. The output Strings of a command are streamed to the input of the next command through a bounded {@link Pipe},
+ * which can be read by {@link IOHandler#input()} until it throws {@link top.focess.command.InputTimeoutException} at the end of the stream.
+ * The first command reads the input of the IOHandler of the pipeline, and the last command writes the output to it.
+ */
+public class CommandPipeline {
+
+    private static final Pattern SEPARATOR = Pattern.compile("\\s*\\|\\s*");
+
+    private static final AtomicInteger PIPELINE_ID = new AtomicInteger();
+
+    private final CommandRegistry registry;
+
+    private final Executor executor;
+
+    private final int capacity;
+
+    /**
+     * Instance a CommandPipeline of the default registry, which runs the commands in its own daemon threads
+     *
+     * @param capacity the max number of Strings buffered between two commands
+     */
+    public CommandPipeline(final int capacity) {
+        this(CommandRegistry.getDefault(), newExecutor(), capacity);
+    }
+
+    /**
+     * Instance a CommandPipeline
+     *
+     * Note: the executor must be able to run all the commands of a pipeline except the last one at the same time, otherwise the pipeline may never finish
+     *
+     * @param registry the registry to find the commands in
+     * @param executor the executor to run the commands except the last one
+     * @param capacity the max number of Strings buffered between two commands
+     */
+    public CommandPipeline(@NotNull final CommandRegistry registry, @NotNull final Executor executor, final int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive");
+        this.registry = registry;
+        this.executor = executor;
+        this.capacity = capacity;
+    }
+
+    @NotNull
+    private static ExecutorService newExecutor() {
+        final int id = PIPELINE_ID.incrementAndGet();
+        final AtomicInteger stageId = new AtomicInteger();
+        return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60, TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "CommandPipeline-" + id + "-Stage-" + stageId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Execute the pipeline
+     *
+     * @param sender    the executor
+     * @param pipeline  the command lines split by <code>|</code>
+     * @param ioHandler the receiver
+     * @return the command results in the order of the command lines
+     * @throws Exception the exception that occurred when executing the commands, the exceptions of the other commands are suppressed in it
+     * @see #execute(CommandSender, List, IOHandler)
+     */
+    @NotNull
+    @UnmodifiableView
+    public List<CommandResult> execute(@NotNull final CommandSender sender, @NotNull final String pipeline, @NotNull final IOHandler ioHandler) throws Exception {
+        return this.execute(sender, Arrays.asList(SEPARATOR.split(pipeline.trim())), ioHandler);
+    }
+
+    /**
+     * Execute the pipeline, wait until all the commands finish.
+     * When a command finishes, its output is closed, so that the next command reaches the end of its input,
+     * and its input is discarded, so that the previous command never blocks on writing.
+     *
+     * @param sender       the executor
+     * @param commandLines the command lines
+     * @param ioHandler    the receiver
+     * @return the command results in the order of the command lines, {@link CommandResult#COMMAND_REFUSED} if there is no such command
+     * @throws RejectedExecutionException if the executor rejects a command, the pipes are closed at both ends so that the started commands finish without blocking on them
+     * @throws Exception the exception that occurred when executing the commands, the exceptions of the other commands are suppressed in it
+     */
+    @NotNull
+    @UnmodifiableView
+    public List<CommandResult> execute(@NotNull final CommandSender sender, @NotNull final List<String> commandLines, @NotNull final IOHandler ioHandler) throws Exception {
+        final int size = commandLines.size();
+        if (size == 0)
+            return Collections.emptyList();
+        final CommandResult[] results = new CommandResult[size];
+        final Exception[] exceptions = new Exception[size];
+        final Pipe[] pipes = new Pipe[size - 1];
+        for (int i = 0; i < pipes.length; i++)
+            pipes[i] = new Pipe(this.capacity);
+        final CountDownLatch latch = new CountDownLatch(size - 1);
+        for (int i = 0; i < size; i++) {
+            final int index = i;
+            final Runnable stage = () -> {
+                final Pipe in = index == 0 ? null : pipes[index - 1];
+                final Pipe out = index == size - 1 ? null : pipes[index];
+                try {
+                    results[index] = this.registry.execute(sender, commandLines.get(index), new PipedIOHandler(in, out, ioHandler));
+                } catch (final Exception e) {
+                    results[index] = CommandResult.REFUSE_EXCEPTION;
+                    exceptions[index] = e;
+                } finally {
+                    if (in != null)
+                        in.closeReader();
+                    if (out != null)
+                        out.close();
+                }
+            };
+            if (i == size - 1)
+                stage.run();
+            else try {
+                this.executor.execute(() -> {
+                    try {
+                        stage.run();
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+            } catch (final RejectedExecutionException e) {
+                // the started commands must not block on the pipes of the commands which never start
+                for (final Pipe pipe : pipes)
+                    pipe.abort();
+                throw e;
+            }
+        }
+        latch.await();
+        Exception exception = null;
+        for (final Exception e : exceptions)
+            if (e != null)
+                if (exception == null)
+                    exception = e;
+                else exception.addSuppressed(e);
+        if (exception != null)
+            throw exception;
+        return Collections.unmodifiableList(Arrays.asList(results));
+    }
+}
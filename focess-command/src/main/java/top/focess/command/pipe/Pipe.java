@@ -0,0 +1,109 @@
+package top.focess.command.pipe;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Represents a bounded stream of output Strings from one command to another.
+ * The writer blocks when the pipe is full, so a fast command cannot run ahead of a slow one and the memory used by the pipe stays bounded.
+ */
+public final class Pipe {
+
+    /**
+     * The end of the stream, compared by identity
+     */
+    @SuppressWarnings("StringOperationCanBeSimplified")
+    private static final String END = new String("END");
+
+    private final BlockingQueue<String> queue;
+
+    private volatile boolean closed;
+
+    private volatile boolean readerClosed;
+
+    /**
+     * Instance a Pipe
+     *
+     * @param capacity the max number of Strings buffered in the pipe
+     */
+    public Pipe(final int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /**
+     * Write a String to the pipe, wait until there is space in the pipe.
+     * The String is dropped if the pipe is closed or the reader has stopped reading.
+     *
+     * @param value the String
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    public void write(@NotNull final String value) throws InterruptedException {
+        if (this.closed || this.readerClosed)
+            return;
+        this.queue.put(value);
+    }
+
+    /**
+     * Read a String from the pipe, wait until there is a String in the pipe or the pipe is closed.
+     *
+     * @return the String, null if the pipe is closed and all the Strings have been read
+     * @throws InterruptedException if the current thread is interrupted while waiting
+     */
+    @Nullable
+    public String read() throws InterruptedException {
+        final String value = this.queue.take();
+        if (value == END) {
+            // keep the end of the stream for the next reads
+            this.queue.offer(END);
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * Close the pipe by the writer. The reader reads the remaining Strings and then the end of the stream.
+     */
+    public synchronized void close() {
+        if (this.closed)
+            return;
+        this.closed = true;
+        boolean interrupted = false;
+        // the reader no longer needs the end of the stream after it is closed, and closing it wakes up this put
+        while (!this.readerClosed)
+            try {
+                this.queue.put(END);
+                break;
+            } catch (final InterruptedException e) {
+                interrupted = true;
+            }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Close the pipe by the reader. The buffered Strings are discarded, and the next Strings written are dropped, so the writer never blocks on this pipe again.
+     */
+    public void closeReader() {
+        this.readerClosed = true;
+        this.queue.clear();
+    }
+
+    /**
+     * Close the pipe by both the writer and the reader. The buffered Strings are discarded, the writer never blocks on this pipe again, and the reader reaches the end of the stream.
+     */
+    synchronized void abort() {
+        this.closed = true;
+        this.readerClosed = true;
+        // a writer blocked before the reader is closed may put one more String after the clear
+        do
+            this.queue.clear();
+        while (!this.queue.offer(END));
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+}
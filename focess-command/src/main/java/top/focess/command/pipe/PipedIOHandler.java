@@ -0,0 +1,77 @@
+package top.focess.command.pipe;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import top.focess.command.IOHandler;
+import top.focess.command.InputTimeoutException;
+
+/**
+ * This class is used to connect a command to the previous and the next commands of a pipeline.
+ * The input Strings are read from the output of the previous command, and the output Strings are written to the input of the next command.
+ * <p>
+ * Note: {@link #input()} throws {@link InputTimeoutException} when the previous command has finished and all its output Strings have been read
+ */
+public class PipedIOHandler extends IOHandler {
+
+    @Nullable
+    private final Pipe in;
+
+    @Nullable
+    private final Pipe out;
+
+    private final IOHandler ioHandler;
+
+    /**
+     * Instance a PipedIOHandler
+     *
+     * @param in        the pipe to read the input Strings from, null to read from the IOHandler
+     * @param out       the pipe to write the output Strings to, null to write to the IOHandler
+     * @param ioHandler the IOHandler of the pipeline
+     */
+    public PipedIOHandler(@Nullable final Pipe in, @Nullable final Pipe out, @NotNull final IOHandler ioHandler) {
+        this.in = in;
+        this.out = out;
+        this.ioHandler = ioHandler;
+    }
+
+    @Override
+    public void output(final String output) {
+        if (this.out == null) {
+            this.ioHandler.output(output);
+            return;
+        }
+        try {
+            this.out.write(output);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @NotNull
+    @Override
+    public String input() throws InputTimeoutException {
+        if (this.in == null)
+            return this.ioHandler.input();
+        try {
+            final String value = this.in.read();
+            if (value == null)
+                throw new InputTimeoutException();
+            return value;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InputTimeoutException();
+        }
+    }
+
+    @Override
+    public void input(@Nullable final String input) {
+        if (this.in == null)
+            this.ioHandler.input(input);
+        else if (input != null)
+            try {
+                this.in.write(input);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+    }
+}
@@ -0,0 +1,108 @@
+package top.focess.command.replay;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.UnmodifiableView;
+import top.focess.command.CommandResult;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents the throughput and the latencies of a replay of a {@link TrafficReplayer}.
+ * <p>
+ * The latency of an execution is measured from the time it is scheduled to be executed, so the time waiting for a free thread is included.
+ */
+public final class ReplayReport {
+
+    private final long duration;
+
+    /**
+     * The sorted latencies in nanoseconds
+     */
+    private final long[] latencies;
+
+    private final long failed;
+
+    private final Map<CommandResult, Long> results;
+
+    ReplayReport(final long duration, @NotNull final long[] latencies, final long failed, @NotNull final Map<CommandResult, Long> results) {
+        this.duration = duration;
+        this.latencies = latencies;
+        this.failed = failed;
+        this.results = Collections.unmodifiableMap(results);
+    }
+
+    /**
+     * Get the number of the executions
+     *
+     * @return the number of the executions
+     */
+    public int getCount() {
+        return this.latencies.length;
+    }
+
+    /**
+     * Get the number of the executions which threw exceptions
+     *
+     * @return the number of the failed executions
+     */
+    public long getFailedCount() {
+        return this.failed;
+    }
+
+    /**
+     * Get the number of the executions of each command result
+     *
+     * @return the number of the executions of each command result
+     */
+    @NotNull
+    @UnmodifiableView
+    public Map<CommandResult, Long> getResults() {
+        return this.results;
+    }
+
+    /**
+     * Get the time from the start of the replay to the end of the last execution
+     *
+     * @param unit the time unit
+     * @return the duration of the replay
+     */
+    public long getDuration(@NotNull final TimeUnit unit) {
+        return unit.convert(this.duration, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Get the number of the executions per second
+     *
+     * @return the throughput of the replay
+     */
+    public double getThroughput() {
+        return this.duration == 0 ? 0 : this.latencies.length * 1e9 / this.duration;
+    }
+
+    /**
+     * Get the latency which the given percentage of the executions are not slower than
+     *
+     * @param percentile the percentile in [0, 100]
+     * @param unit       the time unit
+     * @return the latency of the percentile, 0 if there is no execution
+     * @throws IllegalArgumentException if the percentile is out of range
+     */
+    public long getLatency(final double percentile, @NotNull final TimeUnit unit) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("Percentile must be in [0, 100]");
+        if (this.latencies.length == 0)
+            return 0;
+        final int index = (int) Math.ceil(percentile / 100 * this.latencies.length) - 1;
+        return unit.convert(this.latencies[Math.max(0, index)], TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d executions (%d failed) in %dms, %.1f/s, latency p50 %dus, p90 %dus, p99 %dus, p99.9 %dus, max %dus, results %s",
+                this.getCount(), this.failed, this.getDuration(TimeUnit.MILLISECONDS), this.getThroughput(),
+                this.getLatency(50, TimeUnit.MICROSECONDS), this.getLatency(90, TimeUnit.MICROSECONDS), this.getLatency(99, TimeUnit.MICROSECONDS),
+                this.getLatency(99.9, TimeUnit.MICROSECONDS), this.getLatency(100, TimeUnit.MICROSECONDS), this.results);
+    }
+}
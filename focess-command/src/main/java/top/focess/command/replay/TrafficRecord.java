@@ -0,0 +1,56 @@
+package top.focess.command.replay;
+
+import org.jetbrains.annotations.NotNull;
+import top.focess.command.CommandPermission;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a command line recorded by a {@link TrafficRecorder}
+ */
+public final class TrafficRecord {
+
+    private final long offset;
+
+    private final CommandPermission permission;
+
+    private final String commandLine;
+
+    /**
+     * Instance a TrafficRecord
+     *
+     * @param offset      the nanos from the start of the recording to the execution
+     * @param permission  the permission of the sender
+     * @param commandLine the command line, including the command name and the arguments split by spaces
+     */
+    public TrafficRecord(final long offset, @NotNull final CommandPermission permission, @NotNull final String commandLine) {
+        this.offset = offset;
+        this.permission = permission;
+        this.commandLine = commandLine;
+    }
+
+    /**
+     * Get the time from the start of the recording to the execution
+     *
+     * @param unit the time unit
+     * @return the offset of the execution
+     */
+    public long getOffset(@NotNull final TimeUnit unit) {
+        return unit.convert(this.offset, TimeUnit.NANOSECONDS);
+    }
+
+    @NotNull
+    public CommandPermission getPermission() {
+        return this.permission;
+    }
+
+    @NotNull
+    public String getCommandLine() {
+        return this.commandLine;
+    }
+
+    @Override
+    public String toString() {
+        return "+" + TimeUnit.NANOSECONDS.toMicros(this.offset) + "us " + this.permission + " " + this.commandLine;
+    }
+}
@@ -0,0 +1,241 @@
+package top.focess.command.replay;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import top.focess.command.Command;
+import top.focess.command.CommandPermission;
+import top.focess.command.CommandSender;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Record the command lines executed by the commands with the permissions of their senders and the time they are executed, so that the traffic can be replayed by a {@link TrafficReplayer}.
+ * <p>
+ * The executing threads only queue the records in a bounded lock-free queue, and a dedicated thread writes them into the file.
+ * A record is a variable-length time delta from the previous record, the ordinal of the permission and the UTF-8 command line.
+ * When the queue is full, the new records are dropped.
+ *
+ * @see top.focess.command.CommandRegistry#setTrafficRecorder(TrafficRecorder)
+ */
+public class TrafficRecorder implements AutoCloseable {
+
+    /**
+     * The magic number at the start of a recording, "FCTR"
+     */
+    static final int MAGIC = 0x46435452;
+
+    static final int VERSION = 1;
+
+    private static final AtomicInteger RECORDER_ID = new AtomicInteger();
+
+    private final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final int capacity;
+
+    private final long startTime = System.nanoTime();
+
+    private final DataOutputStream output;
+
+    private final Thread thread;
+
+    private final AtomicBoolean sleeping = new AtomicBoolean();
+
+    private final AtomicLong recorded = new AtomicLong();
+
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * The offset of the last written record, only accessed by the writer thread
+     */
+    private long lastOffset;
+
+    @Nullable
+    private volatile IOException exception;
+
+    private volatile boolean closed;
+
+    /**
+     * Instance a TrafficRecorder which queues at most 65536 records
+     *
+     * @param file the file of the recording
+     * @throws IOException if the file cannot be created
+     */
+    public TrafficRecorder(@NotNull final Path file) throws IOException {
+        this(file, 1 << 16);
+    }
+
+    /**
+     * Instance a TrafficRecorder. The file is overwritten if it exists.
+     *
+     * @param file     the file of the recording
+     * @param capacity the max number of the records waiting to be written
+     * @throws IOException              if the file cannot be created
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    public TrafficRecorder(@NotNull final Path file, final int capacity) throws IOException {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive");
+        this.capacity = capacity;
+        this.output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        this.output.writeInt(MAGIC);
+        this.output.writeInt(VERSION);
+        this.thread = new Thread(this::work, "TrafficRecorder-" + RECORDER_ID.incrementAndGet());
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Record an execution of the command
+     *
+     * @param sender  the executor
+     * @param command the command
+     * @param args    the arguments of the execution
+     */
+    public void record(@NotNull final CommandSender sender, @NotNull final Command command, @NotNull final String[] args) {
+        final long offset = System.nanoTime() - this.startTime;
+        if (this.closed || this.size.incrementAndGet() > this.capacity) {
+            if (!this.closed)
+                this.size.decrementAndGet();
+            this.dropped.incrementAndGet();
+            return;
+        }
+        this.queue.offer(new Entry(offset, sender.getPermission(), command.getName(), args));
+        if (this.sleeping.get() && this.sleeping.compareAndSet(true, false))
+            LockSupport.unpark(this.thread);
+    }
+
+    private void work() {
+        while (true) {
+            final Entry entry = this.queue.poll();
+            if (entry != null) {
+                this.size.decrementAndGet();
+                this.write(entry);
+                continue;
+            }
+            if (this.closed)
+                break;
+            this.flush();
+            this.sleeping.set(true);
+            // check again after announcing sleeping, so that a record queued before it is not missed
+            if (this.queue.isEmpty() && !this.closed)
+                LockSupport.park(this);
+            this.sleeping.set(false);
+        }
+        try {
+            this.output.close();
+        } catch (final IOException e) {
+            this.exception = e;
+        }
+    }
+
+    private void write(@NotNull final Entry entry) {
+        final StringBuilder builder = new StringBuilder(entry.command);
+        for (final String arg : entry.args)
+            builder.append(' ').append(arg);
+        final byte[] commandLine = builder.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            // the records may be queued slightly out of order, so the delta is zigzag encoded
+            final long delta = entry.offset - this.lastOffset;
+            writeVarLong(this.output, (delta << 1) ^ (delta >> 63));
+            this.output.writeByte(entry.permission.ordinal());
+            writeVarLong(this.output, commandLine.length);
+            this.output.write(commandLine);
+            this.lastOffset = entry.offset;
+            this.recorded.incrementAndGet();
+        } catch (final IOException e) {
+            this.exception = e;
+            this.dropped.incrementAndGet();
+        }
+    }
+
+    private void flush() {
+        try {
+            this.output.flush();
+        } catch (final IOException e) {
+            this.exception = e;
+        }
+    }
+
+    private static void writeVarLong(@NotNull final DataOutputStream output, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            output.writeByte((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        output.writeByte((int) value);
+    }
+
+    /**
+     * Close this recorder. The queued records are still written, and the new records are dropped.
+     *
+     * @throws InterruptedException if the current thread is interrupted while waiting for the writer
+     */
+    @Override
+    public void close() throws InterruptedException {
+        this.closed = true;
+        LockSupport.unpark(this.thread);
+        this.thread.join();
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Get the number of the records written into the file
+     *
+     * @return the number of the written records
+     */
+    public long getRecordedCount() {
+        return this.recorded.get();
+    }
+
+    /**
+     * Get the number of the records dropped because the queue is full, this recorder is closed, or the file cannot be written
+     *
+     * @return the number of the dropped records
+     */
+    public long getDroppedCount() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Get the last exception that occurred when writing the file
+     *
+     * @return the last exception, null if there is no exception
+     */
+    @Nullable
+    public IOException getException() {
+        return this.exception;
+    }
+
+    private static final class Entry {
+
+        private final long offset;
+
+        private final CommandPermission permission;
+
+        private final String command;
+
+        private final String[] args;
+
+        private Entry(final long offset, @NotNull final CommandPermission permission, @NotNull final String command, @NotNull final String[] args) {
+            this.offset = offset;
+            this.permission = permission;
+            this.command = command;
+            this.args = args;
+        }
+    }
+}
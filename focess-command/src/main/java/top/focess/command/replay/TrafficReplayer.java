@@ -0,0 +1,194 @@
+package top.focess.command.replay;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+import top.focess.command.CommandPermission;
+import top.focess.command.CommandRegistry;
+import top.focess.command.CommandResult;
+import top.focess.command.CommandSender;
+import top.focess.command.IOHandler;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replay the command lines recorded by a {@link TrafficRecorder} against a registry, and report the throughput and the latencies.
+ * <p>
+ * The command lines are executed in the worker threads at the recorded times, scaled by the speed. The senders are stubs with the recorded permissions, one for each permission,
+ * and the IOHandler discards the output and never has input.
+ */
+public class TrafficReplayer {
+
+    private static final AtomicInteger REPLAYER_ID = new AtomicInteger();
+
+    private static final CommandPermission[] PERMISSIONS = CommandPermission.values();
+
+    private final CommandRegistry registry;
+
+    private final Map<CommandPermission, CommandSender> senders = Maps.newEnumMap(CommandPermission.class);
+
+    private final IOHandler ioHandler = new StubIOHandler();
+
+    /**
+     * Instance a TrafficReplayer
+     *
+     * @param registry the registry executing the command lines
+     */
+    public TrafficReplayer(@NotNull final CommandRegistry registry) {
+        this.registry = registry;
+        for (final CommandPermission permission : PERMISSIONS)
+            this.senders.put(permission, new StubCommandSender(permission));
+    }
+
+    /**
+     * Load the records of a recording
+     *
+     * @param file the file of the recording
+     * @return the records in the order they are recorded
+     * @throws IOException if the file cannot be read or is not a recording of a TrafficRecorder
+     */
+    @NotNull
+    public static List<TrafficRecord> load(@NotNull final Path file) throws IOException {
+        final List<TrafficRecord> records = Lists.newArrayList();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (input.readInt() != TrafficRecorder.MAGIC || input.readInt() != TrafficRecorder.VERSION)
+                throw new IOException("File " + file + " is not a recording of TrafficRecorder");
+            long offset = 0;
+            while (true) {
+                final int first = input.read();
+                if (first == -1)
+                    break;
+                final long delta = readVarLong(input, first);
+                offset += (delta >>> 1) ^ -(delta & 1);
+                final CommandPermission permission = PERMISSIONS[input.readUnsignedByte()];
+                final byte[] commandLine = new byte[(int) readVarLong(input, input.readUnsignedByte())];
+                input.readFully(commandLine);
+                records.add(new TrafficRecord(offset, permission, new String(commandLine, StandardCharsets.UTF_8)));
+            }
+        } catch (final EOFException e) {
+            // the recording was not closed, the last record is incomplete
+        }
+        return records;
+    }
+
+    private static long readVarLong(@NotNull final DataInputStream input, int b) throws IOException {
+        long value = 0;
+        int shift = 0;
+        while ((b & 0x80) != 0) {
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+            b = input.readUnsignedByte();
+        }
+        return value | (long) b << shift;
+    }
+
+    /**
+     * Replay a recording
+     *
+     * @param file    the file of the recording
+     * @param speed   the ratio of the recorded intervals to the replayed intervals, {@link Double#POSITIVE_INFINITY} to execute the command lines as fast as possible
+     * @param threads the number of the worker threads
+     * @return the report of the replay
+     * @throws IOException              if the file cannot be read or is not a recording of a TrafficRecorder
+     * @throws InterruptedException     if the current thread is interrupted while replaying
+     * @throws IllegalArgumentException if the speed or the threads is not positive
+     */
+    @NotNull
+    public ReplayReport replay(@NotNull final Path file, final double speed, final int threads) throws IOException, InterruptedException {
+        return this.replay(load(file), speed, threads);
+    }
+
+    /**
+     * Replay the records
+     *
+     * @param records the records
+     * @param speed   the ratio of the recorded intervals to the replayed intervals, {@link Double#POSITIVE_INFINITY} to execute the command lines as fast as possible
+     * @param threads the number of the worker threads
+     * @return the report of the replay
+     * @throws InterruptedException     if the current thread is interrupted while replaying
+     * @throws IllegalArgumentException if the speed or the threads is not positive
+     */
+    @NotNull
+    public ReplayReport replay(@NotNull final List<TrafficRecord> records, final double speed, final int threads) throws InterruptedException {
+        if (!(speed > 0) || threads <= 0)
+            throw new IllegalArgumentException("Speed and threads must be positive");
+        final int id = REPLAYER_ID.incrementAndGet();
+        final AtomicInteger workerId = new AtomicInteger();
+        final ExecutorService workers = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "TrafficReplayer-" + id + "-Worker-" + workerId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long[] latencies = new long[records.size()];
+        final CommandResult[] results = new CommandResult[records.size()];
+        final long base = records.isEmpty() ? 0 : records.get(0).getOffset(TimeUnit.NANOSECONDS);
+        final long startTime = System.nanoTime();
+        try {
+            for (int i = 0; i < latencies.length; i++) {
+                final TrafficRecord record = records.get(i);
+                final long scheduled = startTime + (long) ((record.getOffset(TimeUnit.NANOSECONDS) - base) / speed);
+                long remaining;
+                while ((remaining = scheduled - System.nanoTime()) > 0) {
+                    LockSupport.parkNanos(remaining);
+                    if (Thread.interrupted())
+                        throw new InterruptedException();
+                }
+                final int index = i;
+                workers.execute(() -> {
+                    try {
+                        results[index] = this.registry.execute(this.senders.get(record.getPermission()), record.getCommandLine(), this.ioHandler);
+                    } catch (final Exception ignored) {
+                        // a failed execution has no result
+                    }
+                    // the latency is measured from the scheduled time, so that the waiting time is not omitted
+                    latencies[index] = System.nanoTime() - scheduled;
+                });
+            }
+        } finally {
+            workers.shutdown();
+        }
+        workers.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        final long duration = System.nanoTime() - startTime;
+        final Map<CommandResult, Long> counts = Maps.newEnumMap(CommandResult.class);
+        long failed = 0;
+        for (final CommandResult result : results)
+            if (result == null)
+                failed++;
+            else counts.merge(result, 1L, Long::sum);
+        Arrays.sort(latencies);
+        return new ReplayReport(duration, latencies, failed, counts);
+    }
+
+    private static final class StubCommandSender extends CommandSender {
+
+        private StubCommandSender(@NotNull final CommandPermission permission) {
+            super(permission);
+        }
+    }
+
+    private static final class StubIOHandler extends IOHandler {
+
+        @Override
+        public void output(final String output) {
+        }
+
+        @Override
+        public boolean hasInput() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,312 @@
+package top.focess.command.schedule;
+
+import com.google.common.collect.Lists;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import top.focess.command.CommandRegistry;
+import top.focess.command.CommandResult;
+import top.focess.command.CommandSender;
+import top.focess.command.IOHandler;
+
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Schedule command lines to execute after a delay, at a fixed rate or on a {@link CronExpression}.
+ * <p>
+ * All the scheduled commands share one timer thread driving a {@link TimingWheel}, and the commands are executed in a bounded worker pool.
+ * A periodic command never overlaps with itself: its next execution is scheduled after the current one finishes, and the missed executions are handled by its {@link MisfirePolicy}.
+ */
+public class CommandScheduler implements AutoCloseable {
+
+    private static final int WHEEL_SIZE = 64;
+
+    private static final long TICK = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private static final AtomicInteger SCHEDULER_ID = new AtomicInteger();
+
+    private final TimingWheel<ScheduledCommand> wheel;
+
+    private final ThreadPoolExecutor workers;
+
+    private final Thread timer;
+
+    private final ZoneId zone;
+
+    private final CommandRegistry registry;
+
+    private final long start = System.nanoTime();
+
+    /**
+     * The due commands rejected by the saturated workers in the current advance, only accessed by the timer thread
+     */
+    private final List<ScheduledCommand> rejected = Lists.newArrayList();
+
+    private volatile boolean closed;
+
+    /**
+     * Instance a CommandScheduler executing the commands in the default registry with the system default time zone
+     *
+     * @param workers   the number of the worker threads
+     * @param queueSize the maximum number of the due executions waiting for the workers
+     * @throws IllegalArgumentException if the workers or the queue size is not positive
+     */
+    public CommandScheduler(final int workers, final int queueSize) {
+        this(CommandRegistry.getDefault(), workers, queueSize, ZoneId.systemDefault());
+    }
+
+    /**
+     * Instance a CommandScheduler
+     *
+     * @param registry  the registry of the commands
+     * @param workers   the number of the worker threads
+     * @param queueSize the maximum number of the due executions waiting for the workers
+     * @param zone      the time zone of the cron expressions
+     * @throws IllegalArgumentException if the workers or the queue size is not positive
+     */
+    public CommandScheduler(@NotNull final CommandRegistry registry, final int workers, final int queueSize, @NotNull final ZoneId zone) {
+        if (workers <= 0 || queueSize <= 0)
+            throw new IllegalArgumentException("Workers and queue size must be positive");
+        final int id = SCHEDULER_ID.incrementAndGet();
+        final AtomicInteger workerId = new AtomicInteger();
+        this.zone = zone;
+        this.registry = registry;
+        this.wheel = new TimingWheel<>(TICK, TimeUnit.NANOSECONDS, WHEEL_SIZE, 0);
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueSize), runnable -> {
+            final Thread thread = new Thread(runnable, "CommandScheduler-" + id + "-Worker-" + workerId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timer = new Thread(this::tick, "CommandScheduler-" + id);
+        this.timer.setDaemon(true);
+        this.timer.start();
+    }
+
+    /**
+     * Execute the command line once after the delay
+     *
+     * @param sender      the executor
+     * @param commandLine the command line, including the command name and the arguments split by spaces
+     * @param ioHandler   the receiver
+     * @param delay       the delay
+     * @param unit        the time unit of the delay
+     * @return the scheduled command
+     * @throws IllegalStateException if this scheduler is closed
+     */
+    @NotNull
+    public ScheduledCommand schedule(@NotNull final CommandSender sender, @NotNull final String commandLine, @NotNull final IOHandler ioHandler, final long delay, @NotNull final TimeUnit unit) {
+        final ScheduledCommand command = new ScheduledCommand(this, sender, commandLine, ioHandler, 0, null, MisfirePolicy.SKIP);
+        command.scheduledTime = this.now() + unit.toNanos(Math.max(0, delay));
+        this.add(command);
+        return command;
+    }
+
+    /**
+     * Execute the command line at a fixed rate
+     *
+     * @param sender        the executor
+     * @param commandLine   the command line, including the command name and the arguments split by spaces
+     * @param ioHandler     the receiver
+     * @param initialDelay  the delay of the first execution
+     * @param period        the period between the starts of the executions
+     * @param unit          the time unit of the initial delay and the period
+     * @param misfirePolicy the policy of the missed executions
+     * @return the scheduled command
+     * @throws IllegalArgumentException if the period is not positive
+     * @throws IllegalStateException    if this scheduler is closed
+     */
+    @NotNull
+    public ScheduledCommand scheduleAtFixedRate(@NotNull final CommandSender sender, @NotNull final String commandLine, @NotNull final IOHandler ioHandler, final long initialDelay, final long period, @NotNull final TimeUnit unit, @NotNull final MisfirePolicy misfirePolicy) {
+        if (period <= 0)
+            throw new IllegalArgumentException("Period must be positive");
+        final ScheduledCommand command = new ScheduledCommand(this, sender, commandLine, ioHandler, unit.toNanos(period), null, misfirePolicy);
+        command.scheduledTime = this.now() + unit.toNanos(Math.max(0, initialDelay));
+        this.add(command);
+        return command;
+    }
+
+    /**
+     * Execute the command line on the cron expression
+     *
+     * @param sender         the executor
+     * @param commandLine    the command line, including the command name and the arguments split by spaces
+     * @param ioHandler      the receiver
+     * @param cronExpression the cron expression
+     * @param misfirePolicy  the policy of the missed executions
+     * @return the scheduled command, which is done if the cron expression never matches
+     * @throws IllegalStateException if this scheduler is closed
+     */
+    @NotNull
+    public ScheduledCommand schedule(@NotNull final CommandSender sender, @NotNull final String commandLine, @NotNull final IOHandler ioHandler, @NotNull final CronExpression cronExpression, @NotNull final MisfirePolicy misfirePolicy) {
+        final ScheduledCommand command = new ScheduledCommand(this, sender, commandLine, ioHandler, 0, cronExpression, misfirePolicy);
+        final ZonedDateTime now = ZonedDateTime.now(this.zone);
+        if (this.scheduleAt(command, cronExpression.next(now), now, this.now()))
+            this.add(command);
+        return command;
+    }
+
+    /**
+     * Close this scheduler. The scheduled commands are not executed any more, and the running executions are not interrupted.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.timer.interrupt();
+        this.workers.shutdown();
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Get the number of the scheduled commands waiting for their time
+     *
+     * @return the number of the scheduled commands waiting for their time
+     */
+    public int size() {
+        synchronized (this.wheel) {
+            return this.wheel.size();
+        }
+    }
+
+    void cancel(@NotNull final ScheduledCommand command) {
+        synchronized (this.wheel) {
+            if (command.timeout != null) {
+                this.wheel.cancel(command.timeout);
+                command.timeout = null;
+            }
+        }
+    }
+
+    private long now() {
+        return System.nanoTime() - this.start;
+    }
+
+    private void add(@NotNull final ScheduledCommand command) {
+        if (this.closed)
+            throw new IllegalStateException("CommandScheduler is closed");
+        synchronized (this.wheel) {
+            if (command.isCancelled())
+                return;
+            final boolean earlier = command.scheduledTime < this.wheel.getNextExpiration();
+            command.timeout = this.wheel.add(command, command.scheduledTime);
+            if (earlier)
+                this.wheel.notifyAll();
+        }
+    }
+
+    private void tick() {
+        synchronized (this.wheel) {
+            while (!this.closed) {
+                this.wheel.advance(this.now(), this::dispatch);
+                // the rejected commands are added back after the advance, so that they are not flushed again in the same advance
+                for (final ScheduledCommand command : this.rejected)
+                    this.retry(command);
+                this.rejected.clear();
+                final long next = this.wheel.getNextExpiration();
+                if (next <= this.now())
+                    continue;
+                try {
+                    if (next == Long.MAX_VALUE)
+                        this.wheel.wait();
+                    else TimeUnit.NANOSECONDS.timedWait(this.wheel, next - this.now());
+                } catch (final InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Dispatch the due command to the workers, called by the timer thread holding the lock of the wheel
+     *
+     * @param command the due command
+     */
+    private void dispatch(@NotNull final ScheduledCommand command) {
+        command.timeout = null;
+        if (command.isCancelled())
+            return;
+        try {
+            this.workers.execute(() -> this.run(command));
+        } catch (final RejectedExecutionException e) {
+            if (!this.closed)
+                this.rejected.add(command);
+        }
+    }
+
+    /**
+     * Handle the command rejected by the saturated workers like a late execution, called by the timer thread holding the lock of the wheel
+     *
+     * @param command the rejected command
+     */
+    private void retry(@NotNull final ScheduledCommand command) {
+        if (command.isCancelled())
+            return;
+        if (command.isPeriodic() && command.getMisfirePolicy() == MisfirePolicy.SKIP) {
+            command.skip();
+            this.reschedule(command, this.now());
+        } else
+            // retry the same execution after a tick, the schedule of the command is not changed so that a CATCH_UP command still runs all its executions
+            command.timeout = this.wheel.add(command, this.now() + TICK);
+    }
+
+    private void run(@NotNull final ScheduledCommand command) {
+        if (command.isCancelled())
+            return;
+        try {
+            command.complete(this.registry.execute(command.getSender(), command.getCommandLine(), command.getIOHandler()), null);
+        } catch (final Exception e) {
+            command.complete(CommandResult.REFUSE_EXCEPTION, e);
+        } finally {
+            if (command.isPeriodic() && !this.closed) {
+                synchronized (this.wheel) {
+                    this.reschedule(command, this.now());
+                }
+            } else command.done();
+        }
+    }
+
+    /**
+     * Schedule the next execution of the periodic command, called holding the lock of the wheel
+     *
+     * @param command the periodic command
+     * @param now     the current time
+     */
+    private void reschedule(@NotNull final ScheduledCommand command, final long now) {
+        if (command.isCancelled())
+            return;
+        final CronExpression cronExpression = command.getCronExpression();
+        if (cronExpression != null) {
+            final ZonedDateTime dateTime = ZonedDateTime.now(this.zone);
+            final ZonedDateTime last = command.getMisfirePolicy() == MisfirePolicy.SKIP && dateTime.isAfter(command.scheduledDateTime) ? dateTime : command.scheduledDateTime;
+            if (!this.scheduleAt(command, cronExpression.next(last), dateTime, now))
+                return;
+        } else {
+            final long period = command.getPeriod();
+            long next = command.scheduledTime + period;
+            if (command.getMisfirePolicy() == MisfirePolicy.SKIP && next <= now)
+                next += ((now - next) / period + 1) * period;
+            command.scheduledTime = next;
+        }
+        command.timeout = this.wheel.add(command, command.scheduledTime);
+        this.wheel.notifyAll();
+    }
+
+    private boolean scheduleAt(@NotNull final ScheduledCommand command, @Nullable final ZonedDateTime next, @NotNull final ZonedDateTime dateTime, final long now) {
+        if (next == null) {
+            command.done();
+            return false;
+        }
+        command.scheduledDateTime = next;
+        command.scheduledTime = now + Math.max(0, Duration.between(dateTime, next).toNanos());
+        return true;
+    }
+}
@@ -0,0 +1,148 @@
+package top.focess.command.schedule;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+
+/**
+ * Represents a cron-like expression with five fields: minute, hour, day of month, month and day of week.
+ * <p>
+ * Each field is <code>*</code>, a number, a range <code>a-b</code>, or a comma separated list of them, and can be followed by a step <code>/n</code>.
+ * The day of week is from 0 to 7, both 0 and 7 are Sunday. Just like cron, when both the day of month and the day of week are restricted, a day matching either of them is matched.
+ * <p>
+ * For example, <code>0 *&#47;6 * * *</code> means every 6 hours, and <code>30 9 * * 1-5</code> means 9:30 on weekdays.
+ */
+public class CronExpression {
+
+    /**
+     * The maximum years to search for the next matched time
+     */
+    private static final int MAX_SEARCH_YEARS = 8;
+
+    private final String expression;
+
+    private final BitSet minutes;
+
+    private final BitSet hours;
+
+    private final BitSet daysOfMonth;
+
+    private final BitSet months;
+
+    private final BitSet daysOfWeek;
+
+    private final boolean dayOfMonthRestricted;
+
+    private final boolean dayOfWeekRestricted;
+
+    private CronExpression(@NotNull final String expression) {
+        this.expression = expression;
+        final String[] fields = expression.trim().split("\\s+");
+        if (fields.length != 5)
+            throw new IllegalArgumentException("Cron expression " + expression + " must have 5 fields");
+        this.minutes = parse(fields[0], 0, 59);
+        this.hours = parse(fields[1], 0, 23);
+        this.daysOfMonth = parse(fields[2], 1, 31);
+        this.months = parse(fields[3], 1, 12);
+        this.daysOfWeek = parse(fields[4], 0, 7);
+        // both 0 and 7 are Sunday
+        if (this.daysOfWeek.get(7))
+            this.daysOfWeek.set(0);
+        this.dayOfMonthRestricted = !fields[2].startsWith("*");
+        this.dayOfWeekRestricted = !fields[4].startsWith("*");
+    }
+
+    /**
+     * Parse the cron expression
+     *
+     * @param expression the cron expression
+     * @return the parsed cron expression
+     * @throws IllegalArgumentException if the cron expression is invalid
+     */
+    @NotNull
+    public static CronExpression parse(@NotNull final String expression) {
+        return new CronExpression(expression);
+    }
+
+    @NotNull
+    private static BitSet parse(@NotNull final String field, final int min, final int max) {
+        final BitSet bitSet = new BitSet(max + 1);
+        for (final String part : field.split(",")) {
+            final String[] rangeAndStep = part.split("/", -1);
+            if (rangeAndStep.length > 2)
+                throw new IllegalArgumentException("Invalid cron field " + field);
+            final int step = rangeAndStep.length == 2 ? parseNumber(rangeAndStep[1], 1, max, field) : 1;
+            final int start;
+            final int end;
+            if (rangeAndStep[0].equals("*")) {
+                start = min;
+                end = max;
+            } else if (rangeAndStep[0].contains("-")) {
+                final String[] range = rangeAndStep[0].split("-", -1);
+                if (range.length != 2)
+                    throw new IllegalArgumentException("Invalid cron field " + field);
+                start = parseNumber(range[0], min, max, field);
+                end = parseNumber(range[1], start, max, field);
+            } else {
+                start = parseNumber(rangeAndStep[0], min, max, field);
+                end = rangeAndStep.length == 2 ? max : start;
+            }
+            for (int i = start; i <= end; i += step)
+                bitSet.set(i);
+        }
+        return bitSet;
+    }
+
+    private static int parseNumber(@NotNull final String value, final int min, final int max, @NotNull final String field) {
+        final int number;
+        try {
+            number = Integer.parseInt(value);
+        } catch (final NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid cron field " + field, e);
+        }
+        if (number < min || number > max)
+            throw new IllegalArgumentException("Invalid cron field " + field);
+        return number;
+    }
+
+    /**
+     * Get the next matched time strictly after the special time
+     *
+     * @param time the special time
+     * @return the next matched time, null if there is no matched time in the following years
+     */
+    @Nullable
+    public ZonedDateTime next(@NotNull final ZonedDateTime time) {
+        ZonedDateTime next = time.truncatedTo(ChronoUnit.MINUTES).plusMinutes(1);
+        final int maxYear = time.getYear() + MAX_SEARCH_YEARS;
+        while (next.getYear() <= maxYear) {
+            if (!this.months.get(next.getMonthValue()))
+                next = next.truncatedTo(ChronoUnit.DAYS).withDayOfMonth(1).plusMonths(1);
+            else if (!this.matchDay(next))
+                next = next.truncatedTo(ChronoUnit.DAYS).plusDays(1);
+            else if (!this.hours.get(next.getHour()))
+                next = next.truncatedTo(ChronoUnit.HOURS).plusHours(1);
+            else if (!this.minutes.get(next.getMinute()))
+                next = next.plusMinutes(1);
+            else return next;
+        }
+        return null;
+    }
+
+    private boolean matchDay(@NotNull final ZonedDateTime time) {
+        final boolean dayOfMonth = this.daysOfMonth.get(time.getDayOfMonth());
+        // DayOfWeek is from 1 (Monday) to 7 (Sunday)
+        final boolean dayOfWeek = this.daysOfWeek.get(time.getDayOfWeek().getValue() % 7);
+        if (this.dayOfMonthRestricted && this.dayOfWeekRestricted)
+            return dayOfMonth || dayOfWeek;
+        return dayOfMonth && dayOfWeek;
+    }
+
+    @Override
+    public String toString() {
+        return this.expression;
+    }
+}
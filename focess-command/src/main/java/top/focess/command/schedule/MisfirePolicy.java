@@ -0,0 +1,16 @@
+package top.focess.command.schedule;
+
+/**
+ * Represents how a periodic {@link ScheduledCommand} handles the executions missed because the scheduler or the workers are late.
+ */
+public enum MisfirePolicy {
+
+    /**
+     * Run all the missed executions one after another until the command catches up with its schedule
+     */
+    CATCH_UP,
+    /**
+     * Run the command once and skip the other missed executions
+     */
+    SKIP
+}
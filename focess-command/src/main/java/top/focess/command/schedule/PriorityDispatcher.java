@@ -0,0 +1,342 @@
+package top.focess.command.schedule;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import top.focess.command.Command;
+import top.focess.command.CommandPermission;
+import top.focess.command.CommandRegistry;
+import top.focess.command.CommandResult;
+import top.focess.command.CommandSender;
+import top.focess.command.IOHandler;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+/**
+ * Execute the command lines in the worker threads by their priorities, so that the commands of the moderators do not wait behind a flood of the commands of the members.
+ * <p>
+ * There is a lane for each level of {@link CommandPermission}, and a command line is queued in the lane of {@link Command#getPriority(CommandSender)}.
+ * The lane is chosen without initializing the command or matching the arguments, so that the submitting thread does not do the work of the workers.
+ * The workers take the command lines from the lanes by the smooth weighted round-robin, so that a lane with a higher weight is served more often but the other lanes are still served.
+ * A command line which has waited for more than the max wait is taken first, so that no lane is starved. The aged command lines take at most one of every few dispatches in turn of the lanes,
+ * so that under a sustained overload the dispatch does not become first-in-first-out and the lanes of the higher priorities are still served by their weights.
+ */
+public class PriorityDispatcher implements AutoCloseable {
+
+    private static final AtomicInteger DISPATCHER_ID = new AtomicInteger();
+
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private final CommandRegistry registry;
+
+    private final int queueSize;
+
+    private final Map<CommandPermission, Lane> lanes = new EnumMap<>(CommandPermission.class);
+
+    /**
+     * The distinct lanes, ordered from the highest priority to the lowest priority
+     */
+    private final Lane[] orderedLanes;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final Condition notEmpty = this.lock.newCondition();
+
+    private final Thread[] workers;
+
+    private volatile long maxWait = TimeUnit.SECONDS.toNanos(1);
+
+    /**
+     * The number of the dispatches by the weights since the last aged dispatch, guarded by the lock
+     */
+    private int sinceAged;
+
+    /**
+     * The index of the lane checked first for the aged command lines, guarded by the lock
+     */
+    private int agingCursor;
+
+    private volatile boolean closed;
+
+    /**
+     * Instance a PriorityDispatcher of the default registry
+     *
+     * @param workers   the number of the worker threads
+     * @param queueSize the maximum number of the command lines waiting in each lane
+     * @throws IllegalArgumentException if the workers or the queue size is not positive
+     */
+    public PriorityDispatcher(final int workers, final int queueSize) {
+        this(CommandRegistry.getDefault(), workers, queueSize);
+    }
+
+    /**
+     * Instance a PriorityDispatcher. The weight of a lane is its permission level plus 1 by default.
+     *
+     * @param registry  the registry of the commands
+     * @param workers   the number of the worker threads
+     * @param queueSize the maximum number of the command lines waiting in each lane
+     * @throws IllegalArgumentException if the workers or the queue size is not positive
+     */
+    public PriorityDispatcher(@NotNull final CommandRegistry registry, final int workers, final int queueSize) {
+        if (workers <= 0 || queueSize <= 0)
+            throw new IllegalArgumentException("Workers and queue size must be positive");
+        this.registry = registry;
+        this.queueSize = queueSize;
+        // the permissions with the same level share a lane
+        for (final CommandPermission permission : CommandPermission.values())
+            this.lanes.put(permission, this.lanes.values().stream().filter(lane -> lane.permission.getPriority() == permission.getPriority()).findFirst().orElseGet(() -> new Lane(permission)));
+        this.orderedLanes = this.lanes.values().stream().distinct().sorted((a, b) -> Integer.compare(b.permission.getPriority(), a.permission.getPriority())).toArray(Lane[]::new);
+        final int id = DISPATCHER_ID.incrementAndGet();
+        this.workers = new Thread[workers];
+        for (int i = 0; i < workers; i++) {
+            this.workers[i] = new Thread(this::work, "PriorityDispatcher-" + id + "-Worker-" + (i + 1));
+            this.workers[i].setDaemon(true);
+            this.workers[i].start();
+        }
+    }
+
+    /**
+     * Queue the command line in the lane of its priority
+     *
+     * @param sender      the executor
+     * @param commandLine the command line, including the command name and the arguments split by spaces
+     * @param ioHandler   the receiver
+     * @return the future of the command result, which is completed exceptionally with the exception that occurred when executing the command
+     * @throws RejectedExecutionException if the lane is full or this dispatcher is closed
+     */
+    @NotNull
+    public CompletableFuture<CommandResult> submit(@NotNull final CommandSender sender, @NotNull final String commandLine, @NotNull final IOHandler ioHandler) {
+        final Task task = new Task(sender, commandLine, ioHandler);
+        final Lane lane = this.lanes.get(this.getPriority(sender, commandLine));
+        this.lock.lock();
+        try {
+            if (this.closed)
+                throw new RejectedExecutionException("PriorityDispatcher is closed");
+            if (lane.tasks.size() >= this.queueSize)
+                throw new RejectedExecutionException("Lane " + lane.permission + " is full");
+            lane.tasks.add(task);
+            this.notEmpty.signal();
+        } finally {
+            this.lock.unlock();
+        }
+        return task.future;
+    }
+
+    @NotNull
+    private CommandPermission getPriority(@NotNull final CommandSender sender, @NotNull final String commandLine) {
+        final Command command = this.registry.getCommand(SPACES.split(commandLine.trim(), 2)[0]);
+        // the command line is refused soon if there is no such command
+        if (command == null)
+            return CommandPermission.MEMBER;
+        return command.getPriority(sender);
+    }
+
+    /**
+     * Set the weight of the lane of the permission level. The workers take the command lines from a lane in proportion to its weight.
+     *
+     * @param permission the permission level of the lane
+     * @param weight     the weight of the lane
+     * @throws IllegalArgumentException if the weight is not positive
+     */
+    public void setWeight(@NotNull final CommandPermission permission, final int weight) {
+        if (weight <= 0)
+            throw new IllegalArgumentException("Weight must be positive");
+        this.lock.lock();
+        try {
+            this.lanes.get(permission).weight = weight;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Set the max wait of the command lines. A command line which has waited for more than the max wait is taken before the others in the turns of the aged command lines.
+     *
+     * @param maxWait the max wait
+     * @param unit    the time unit of the max wait
+     */
+    public void setMaxWait(final long maxWait, @NotNull final TimeUnit unit) {
+        this.maxWait = unit.toNanos(maxWait);
+    }
+
+    /**
+     * Get the number of the command lines waiting in the lane of the permission level
+     *
+     * @param permission the permission level of the lane
+     * @return the number of the waiting command lines
+     */
+    public int getQueueSize(@NotNull final CommandPermission permission) {
+        this.lock.lock();
+        try {
+            return this.lanes.get(permission).tasks.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of the command lines taken from the lane of the permission level
+     *
+     * @param permission the permission level of the lane
+     * @return the number of the taken command lines
+     */
+    public long getDispatchedCount(@NotNull final CommandPermission permission) {
+        this.lock.lock();
+        try {
+            return this.lanes.get(permission).dispatched;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Get the number of the command lines taken from the lane of the permission level because they have waited for more than the max wait
+     *
+     * @param permission the permission level of the lane
+     * @return the number of the aged command lines
+     */
+    public long getAgedCount(@NotNull final CommandPermission permission) {
+        this.lock.lock();
+        try {
+            return this.lanes.get(permission).aged;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Close this dispatcher. The waiting command lines are completed exceptionally with {@link RejectedExecutionException}, and the running executions are not interrupted.
+     */
+    @Override
+    public void close() {
+        this.lock.lock();
+        try {
+            this.closed = true;
+            for (final Lane lane : this.orderedLanes) {
+                Task task;
+                while ((task = lane.tasks.poll()) != null)
+                    task.future.completeExceptionally(new RejectedExecutionException("PriorityDispatcher is closed"));
+            }
+            this.notEmpty.signalAll();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    private void work() {
+        while (true) {
+            final Task task;
+            this.lock.lock();
+            try {
+                Task next;
+                while ((next = this.take()) == null) {
+                    if (this.closed)
+                        return;
+                    this.notEmpty.awaitUninterruptibly();
+                }
+                task = next;
+            } finally {
+                this.lock.unlock();
+            }
+            try {
+                task.future.complete(this.registry.execute(task.sender, task.commandLine, task.ioHandler));
+            } catch (final Throwable e) {
+                // an Error must not kill the worker or leave the future incomplete
+                task.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Take the next command line, called holding the lock
+     *
+     * @return the next command line, null if all the lanes are empty
+     */
+    @Nullable
+    private Task take() {
+        final int lanes = this.orderedLanes.length;
+        // the aged command lines take at most one of every lanes + 1 dispatches, and the lanes are checked in turn
+        if (this.sinceAged >= lanes) {
+            final long deadline = System.nanoTime() - this.maxWait;
+            for (int i = 0; i < lanes; i++) {
+                final Lane lane = this.orderedLanes[(this.agingCursor + i) % lanes];
+                final Task head = lane.tasks.peek();
+                if (head != null && head.queuedTime - deadline < 0) {
+                    this.agingCursor = (this.agingCursor + i + 1) % lanes;
+                    this.sinceAged = 0;
+                    lane.aged++;
+                    lane.dispatched++;
+                    return lane.tasks.poll();
+                }
+            }
+        }
+        // smooth weighted round-robin over the non-empty lanes
+        Lane selected = null;
+        int total = 0;
+        for (final Lane lane : this.orderedLanes)
+            if (!lane.tasks.isEmpty()) {
+                lane.current += lane.weight;
+                total += lane.weight;
+                if (selected == null || lane.current > selected.current)
+                    selected = lane;
+            }
+        if (selected == null)
+            return null;
+        selected.current -= total;
+        selected.dispatched++;
+        this.sinceAged++;
+        return selected.tasks.poll();
+    }
+
+    private static final class Lane {
+
+        private final CommandPermission permission;
+
+        private final Queue<Task> tasks = new ArrayDeque<>();
+
+        private int weight;
+
+        private int current;
+
+        private long dispatched;
+
+        private long aged;
+
+        private Lane(@NotNull final CommandPermission permission) {
+            this.permission = permission;
+            this.weight = permission.getPriority() + 1;
+        }
+    }
+
+    private static final class Task {
+
+        private final CommandSender sender;
+
+        private final String commandLine;
+
+        private final IOHandler ioHandler;
+
+        private final long queuedTime = System.nanoTime();
+
+        private final CompletableFuture<CommandResult> future = new CompletableFuture<>();
+
+        private Task(@NotNull final CommandSender sender, @NotNull final String commandLine, @NotNull final IOHandler ioHandler) {
+            this.sender = sender;
+            this.commandLine = commandLine;
+            this.ioHandler = ioHandler;
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package top.focess.command.schedule;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import top.focess.command.CommandResult;
+import top.focess.command.CommandSender;
+import top.focess.command.IOHandler;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Represents a command line scheduled by a {@link CommandScheduler}. It is the handle to cancel the scheduled executions.
+ */
+public class ScheduledCommand {
+
+    private final CommandScheduler scheduler;
+
+    private final CommandSender sender;
+
+    private final String commandLine;
+
+    private final IOHandler ioHandler;
+
+    /**
+     * The period in nanos, 0 if it is not executed at a fixed rate
+     */
+    private final long period;
+
+    @Nullable
+    private final CronExpression cronExpression;
+
+    private final MisfirePolicy misfirePolicy;
+
+    /**
+     * The scheduled time in the time of the scheduler
+     */
+    long scheduledTime;
+
+    /**
+     * The scheduled wall-clock time for the cron expression
+     */
+    @Nullable
+    ZonedDateTime scheduledDateTime;
+
+    /**
+     * The timeout in the timing wheel, guarded by the scheduler
+     */
+    @Nullable
+    TimingWheel.Timeout<ScheduledCommand> timeout;
+
+    private volatile boolean cancelled;
+
+    private volatile boolean done;
+
+    @Nullable
+    private volatile CommandResult lastResult;
+
+    @Nullable
+    private volatile Exception lastException;
+
+    /**
+     * The number of the skipped executions, only increased by the timer thread of the scheduler
+     */
+    private volatile long skippedCount;
+
+    ScheduledCommand(@NotNull final CommandScheduler scheduler, @NotNull final CommandSender sender, @NotNull final String commandLine, @NotNull final IOHandler ioHandler, final long period, @Nullable final CronExpression cronExpression, @NotNull final MisfirePolicy misfirePolicy) {
+        this.scheduler = scheduler;
+        this.sender = sender;
+        this.commandLine = commandLine;
+        this.ioHandler = ioHandler;
+        this.period = period;
+        this.cronExpression = cronExpression;
+        this.misfirePolicy = misfirePolicy;
+    }
+
+    /**
+     * Cancel the following executions of this command. The running execution is not interrupted.
+     *
+     * @return true if it is cancelled, false if it is cancelled or done before
+     */
+    public boolean cancel() {
+        if (this.cancelled || this.done)
+            return false;
+        this.cancelled = true;
+        this.scheduler.cancel(this);
+        return true;
+    }
+
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Indicate whether there is no following execution of this command
+     *
+     * @return true if this command is cancelled or it will not be executed any more, false otherwise
+     */
+    public boolean isDone() {
+        return this.done || this.cancelled;
+    }
+
+    public boolean isPeriodic() {
+        return this.period > 0 || this.cronExpression != null;
+    }
+
+    /**
+     * Get the result of the last execution
+     *
+     * @return the result of the last execution, null if it has not been executed
+     */
+    @Nullable
+    public CommandResult getLastResult() {
+        return this.lastResult;
+    }
+
+    /**
+     * Get the exception thrown in the last execution
+     *
+     * @return the exception thrown in the last execution, null if there is no exception
+     */
+    @Nullable
+    public Exception getLastException() {
+        return this.lastException;
+    }
+
+    /**
+     * Get the number of the executions skipped because the workers of the scheduler were saturated, which only happens to the periodic commands with {@link MisfirePolicy#SKIP}
+     *
+     * @return the number of the skipped executions
+     */
+    public long getSkippedCount() {
+        return this.skippedCount;
+    }
+
+    void skip() {
+        this.skippedCount++;
+    }
+
+    @NotNull
+    public CommandSender getSender() {
+        return this.sender;
+    }
+
+    @NotNull
+    public String getCommandLine() {
+        return this.commandLine;
+    }
+
+    @NotNull
+    public IOHandler getIOHandler() {
+        return this.ioHandler;
+    }
+
+    long getPeriod() {
+        return this.period;
+    }
+
+    @Nullable
+    CronExpression getCronExpression() {
+        return this.cronExpression;
+    }
+
+    @NotNull
+    MisfirePolicy getMisfirePolicy() {
+        return this.misfirePolicy;
+    }
+
+    void complete(@NotNull final CommandResult result, @Nullable final Exception exception) {
+        this.lastResult = result;
+        this.lastException = exception;
+    }
+
+    void done() {
+        this.done = true;
+    }
+}
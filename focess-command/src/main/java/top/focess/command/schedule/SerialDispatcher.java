@@ -0,0 +1,215 @@
+package top.focess.command.schedule;
+
+import com.google.common.collect.Maps;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import top.focess.command.CommandRegistry;
+import top.focess.command.CommandResult;
+import top.focess.command.CommandSender;
+import top.focess.command.IOHandler;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Execute the command lines in the worker threads, in order and one by one for each sender, while the command lines of different senders run in parallel.
+ * <p>
+ * Each sender key owns a bounded queue which is drained by at most one worker at a time. A queue is removed when it is empty, so the memory is bounded by the active senders.
+ * A worker executes at most a few command lines of a sender before it yields to the other senders.
+ */
+public class SerialDispatcher implements AutoCloseable {
+
+    private static final AtomicInteger DISPATCHER_ID = new AtomicInteger();
+
+    /**
+     * The max number of command lines of a sender executed before yielding
+     */
+    private static final int BATCH_SIZE = 16;
+
+    private final CommandRegistry registry;
+
+    private final int queueSize;
+
+    private final Function<CommandSender, Object> senderKey;
+
+    private final ConcurrentMap<Object, Queue<Task>> queues = Maps.newConcurrentMap();
+
+    private final ThreadPoolExecutor workers;
+
+    private volatile boolean closed;
+
+    /**
+     * Instance a SerialDispatcher of the default registry keyed by {@link CommandSender#getIdentity()}
+     *
+     * @param workers   the number of the worker threads
+     * @param queueSize the maximum number of the command lines waiting for each sender
+     * @throws IllegalArgumentException if the workers or the queue size is not positive
+     */
+    public SerialDispatcher(final int workers, final int queueSize) {
+        this(CommandRegistry.getDefault(), workers, queueSize, CommandSender::getIdentity);
+    }
+
+    /**
+     * Instance a SerialDispatcher
+     *
+     * @param registry  the registry of the commands
+     * @param workers   the number of the worker threads
+     * @param queueSize the maximum number of the command lines waiting for each sender
+     * @param senderKey the key of the sender, the command lines with the same key are executed in order and one by one
+     * @throws IllegalArgumentException if the workers or the queue size is not positive
+     */
+    public SerialDispatcher(@NotNull final CommandRegistry registry, final int workers, final int queueSize, @NotNull final Function<CommandSender, Object> senderKey) {
+        if (workers <= 0 || queueSize <= 0)
+            throw new IllegalArgumentException("Workers and queue size must be positive");
+        this.registry = registry;
+        this.queueSize = queueSize;
+        this.senderKey = senderKey;
+        final int id = DISPATCHER_ID.incrementAndGet();
+        final AtomicInteger workerId = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            final Thread thread = new Thread(runnable, "SerialDispatcher-" + id + "-Worker-" + workerId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue the command line after the other command lines of the sender
+     *
+     * @param sender      the executor
+     * @param commandLine the command line, including the command name and the arguments split by spaces
+     * @param ioHandler   the receiver
+     * @return the future of the command result, which is completed exceptionally with the exception that occurred when executing the command
+     * @throws RejectedExecutionException if the queue of the sender is full or this dispatcher is closed
+     */
+    @NotNull
+    public CompletableFuture<CommandResult> submit(@NotNull final CommandSender sender, @NotNull final String commandLine, @NotNull final IOHandler ioHandler) {
+        if (this.closed)
+            throw new RejectedExecutionException("SerialDispatcher is closed");
+        final Object key = this.senderKey.apply(sender);
+        final Task task = new Task(sender, commandLine, ioHandler);
+        final boolean[] created = new boolean[1];
+        // all the changes of a queue are made in compute, so a queue is drained by one worker and removed only when it is empty
+        this.queues.compute(key, (k, queue) -> {
+            if (queue == null) {
+                queue = new ArrayDeque<>();
+                created[0] = true;
+            } else if (queue.size() >= this.queueSize)
+                throw new RejectedExecutionException("Queue of sender " + k + " is full");
+            queue.add(task);
+            return queue;
+        });
+        if (created[0])
+            this.schedule(key);
+        return task.future;
+    }
+
+    private void schedule(@NotNull final Object key) {
+        try {
+            this.workers.execute(() -> this.drain(key));
+        } catch (final RejectedExecutionException e) {
+            // this dispatcher is closed
+            Task task;
+            while ((task = this.poll(key)) != null)
+                task.future.completeExceptionally(e);
+        }
+    }
+
+    private void drain(@NotNull final Object key) {
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            final Task task = this.poll(key);
+            if (task == null)
+                return;
+            try {
+                task.future.complete(this.registry.execute(task.sender, task.commandLine, task.ioHandler));
+            } catch (final Throwable e) {
+                // an Error must not stop the drain, or the later command lines of the sender are never executed
+                task.future.completeExceptionally(e);
+            }
+        }
+        this.schedule(key);
+    }
+
+    /**
+     * Take the next command line of the sender, and remove the queue of the sender if it is empty
+     *
+     * @param key the sender key
+     * @return the next command line, null if the queue is empty
+     */
+    @Nullable
+    private Task poll(@NotNull final Object key) {
+        final Task[] task = new Task[1];
+        this.queues.computeIfPresent(key, (k, queue) -> {
+            task[0] = queue.poll();
+            return task[0] == null ? null : queue;
+        });
+        return task[0];
+    }
+
+    /**
+     * Get the number of the command lines of the sender waiting to run
+     *
+     * @param sender the sender
+     * @return the number of the waiting command lines of the sender
+     */
+    public int getQueueSize(@NotNull final CommandSender sender) {
+        final int[] size = new int[1];
+        this.queues.computeIfPresent(this.senderKey.apply(sender), (k, queue) -> {
+            size[0] = queue.size();
+            return queue;
+        });
+        return size[0];
+    }
+
+    /**
+     * Get the number of the senders which have command lines waiting or running
+     *
+     * @return the number of the active senders
+     */
+    public int size() {
+        return this.queues.size();
+    }
+
+    /**
+     * Close this dispatcher. The waiting command lines are completed exceptionally with {@link RejectedExecutionException}, and the running executions are not interrupted.
+     */
+    @Override
+    public void close() {
+        this.closed = true;
+        this.workers.shutdown();
+        for (final Object key : this.queues.keySet()) {
+            Task task;
+            while ((task = this.poll(key)) != null)
+                task.future.completeExceptionally(new RejectedExecutionException("SerialDispatcher is closed"));
+        }
+    }
+
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    private static final class Task {
+
+        private final CommandSender sender;
+
+        private final String commandLine;
+
+        private final IOHandler ioHandler;
+
+        private final CompletableFuture<CommandResult> future = new CompletableFuture<>();
+
+        private Task(@NotNull final CommandSender sender, @NotNull final String commandLine, @NotNull final IOHandler ioHandler) {
+            this.sender = sender;
+            this.commandLine = commandLine;
+            this.ioHandler = ioHandler;
+        }
+    }
+}
@@ -0,0 +1,293 @@
+package top.focess.command.schedule;
+
+import com.google.common.collect.Lists;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel. Adding and cancelling a timeout costs O(1), and advancing the wheel only visits the buckets that contain timeouts.
+ * <p>
+ * Each level of the wheel has the same number of buckets, and a bucket of the next level spans the whole previous level.
+ * A timeout is put into the finest level that can hold it, and it falls down to the finer levels when its bucket expires.
+ * <p>
+ * Note: the time of this wheel is a non-decreasing long value in nanos chosen by the caller, and this class is not thread-safe.
+ *
+ * @param <T> the type of the values held by the timeouts
+ */
+public class TimingWheel<T> {
+
+    /**
+     * The buckets containing timeouts ordered by their expirations, the buckets of the finer levels go first when their expirations are the same,
+     * so that a bucket of the lowest level is always flushed before its slot is reused by the timeouts falling down
+     */
+    private final PriorityQueue<Bucket> queue = new PriorityQueue<>((a, b) -> a.expiration == b.expiration ? Integer.compare(a.level, b.level) : Long.compare(a.expiration, b.expiration));
+
+    private final Level lowest;
+
+    private final int wheelSize;
+
+    /**
+     * The timeouts that are expired when they are added
+     */
+    private final Bucket expired;
+
+    private int size;
+
+    /**
+     * Instance a TimingWheel
+     *
+     * @param tick      the duration of a bucket in the lowest level
+     * @param unit      the time unit of the tick
+     * @param wheelSize the number of buckets of each level
+     * @param startTime the start time of this wheel in nanos
+     * @throws IllegalArgumentException if the tick or the wheel size is not positive
+     */
+    public TimingWheel(final long tick, @NotNull final TimeUnit unit, final int wheelSize, final long startTime) {
+        if (tick <= 0 || wheelSize <= 0)
+            throw new IllegalArgumentException("Tick and wheel size must be positive");
+        this.wheelSize = wheelSize;
+        this.lowest = new Level(unit.toNanos(tick), startTime, 0);
+        this.expired = new Bucket(-1);
+    }
+
+    /**
+     * Add a timeout to this wheel
+     *
+     * @param value    the value held by the timeout
+     * @param deadline the deadline of the timeout in nanos
+     * @return the timeout which can be cancelled
+     */
+    @NotNull
+    public Timeout<T> add(final T value, final long deadline) {
+        final Timeout<T> timeout = new Timeout<>(value, deadline);
+        if (!this.lowest.add(timeout))
+            this.expired.add(timeout);
+        this.size++;
+        return timeout;
+    }
+
+    /**
+     * Cancel the timeout
+     *
+     * @param timeout the timeout
+     * @return true if the timeout is cancelled, false if it is expired or cancelled before
+     */
+    public boolean cancel(@NotNull final Timeout<T> timeout) {
+        if (timeout.bucket == null)
+            return false;
+        timeout.bucket.remove(timeout);
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Advance this wheel to the special time, and remove all the timeouts whose deadlines are not after this time
+     *
+     * @param now      the current time in nanos
+     * @param consumer the consumer of the values held by the expired timeouts
+     */
+    public void advance(final long now, @NotNull final Consumer<T> consumer) {
+        this.expired.flush(timeout -> this.expire(timeout, consumer));
+        Bucket bucket;
+        while ((bucket = this.queue.peek()) != null && bucket.expiration <= now) {
+            this.queue.poll();
+            this.lowest.advance(bucket.expiration);
+            bucket.flush(timeout -> {
+                if (timeout.deadline <= now || !this.lowest.add(timeout))
+                    this.expire(timeout, consumer);
+            });
+        }
+        this.lowest.advance(now);
+    }
+
+    private void expire(@NotNull final Timeout<T> timeout, @NotNull final Consumer<T> consumer) {
+        this.size--;
+        consumer.accept(timeout.value);
+    }
+
+    /**
+     * Get the earliest time when {@link #advance(long, Consumer)} may expire any timeout
+     *
+     * @return the earliest time in nanos, {@link Long#MAX_VALUE} if there is no timeout
+     */
+    public long getNextExpiration() {
+        if (!this.expired.isEmpty())
+            return Long.MIN_VALUE;
+        final Bucket bucket = this.queue.peek();
+        return bucket == null ? Long.MAX_VALUE : bucket.expiration;
+    }
+
+    /**
+     * Get the number of the timeouts in this wheel
+     *
+     * @return the number of the timeouts in this wheel
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Represents a timeout in a TimingWheel
+     *
+     * @param <T> the type of the value
+     */
+    public static final class Timeout<T> {
+
+        private final T value;
+
+        private final long deadline;
+
+        @Nullable
+        private TimingWheel<T>.Bucket bucket;
+
+        @Nullable
+        private Timeout<T> prev;
+
+        @Nullable
+        private Timeout<T> next;
+
+        private Timeout(final T value, final long deadline) {
+            this.value = value;
+            this.deadline = deadline;
+        }
+
+        public T getValue() {
+            return this.value;
+        }
+
+        public long getDeadline() {
+            return this.deadline;
+        }
+    }
+
+    private class Level {
+
+        private final long tick;
+
+        private final long interval;
+
+        private final List<Bucket> buckets;
+
+        private final int level;
+
+        private long currentTime;
+
+        @Nullable
+        private Level overflow;
+
+        private Level(final long tick, final long startTime, final int level) {
+            this.tick = tick;
+            this.interval = tick * TimingWheel.this.wheelSize;
+            this.currentTime = Math.floorDiv(startTime, tick) * tick;
+            this.level = level;
+            this.buckets = Lists.newArrayListWithCapacity(TimingWheel.this.wheelSize);
+            for (int i = 0; i < TimingWheel.this.wheelSize; i++)
+                this.buckets.add(new Bucket(level));
+        }
+
+        /**
+         * Add the timeout to this level or the overflow levels
+         *
+         * @param timeout the timeout
+         * @return true if the timeout is added, false if its deadline is before the current time of this level
+         */
+        private boolean add(@NotNull final Timeout<T> timeout) {
+            if (timeout.deadline < (this.level == 0 ? this.currentTime : this.currentTime + this.tick))
+                return false;
+            if (timeout.deadline < this.currentTime + this.interval) {
+                final long virtualId = Math.floorDiv(timeout.deadline, this.tick);
+                final Bucket bucket = this.buckets.get((int) Math.floorMod(virtualId, (long) this.buckets.size()));
+                bucket.add(timeout);
+                // the lowest level expires a bucket at its end so that all the timeouts in it are due when it is flushed,
+                // the other levels expire a bucket at its start so that its timeouts fall down to the finer levels in time
+                if (bucket.setExpiration(this.level == 0 ? (virtualId + 1) * this.tick : virtualId * this.tick))
+                    TimingWheel.this.queue.offer(bucket);
+                return true;
+            }
+            if (this.overflow == null)
+                this.overflow = new Level(this.interval, this.currentTime, this.level + 1);
+            return this.overflow.add(timeout);
+        }
+
+        private void advance(final long time) {
+            if (time >= this.currentTime + this.tick) {
+                this.currentTime = Math.floorDiv(time, this.tick) * this.tick;
+                if (this.overflow != null)
+                    this.overflow.advance(this.currentTime);
+            }
+        }
+    }
+
+    private class Bucket {
+
+        private final Timeout<T> root = new Timeout<>(null, 0);
+
+        private final int level;
+
+        private long expiration = -1;
+
+        private Bucket(final int level) {
+            this.level = level;
+            this.root.prev = this.root;
+            this.root.next = this.root;
+        }
+
+        private void add(@NotNull final Timeout<T> timeout) {
+            final Timeout<T> tail = this.root.prev;
+            timeout.next = this.root;
+            timeout.prev = tail;
+            tail.next = timeout;
+            this.root.prev = timeout;
+            timeout.bucket = this;
+        }
+
+        private void remove(@NotNull final Timeout<T> timeout) {
+            timeout.prev.next = timeout.next;
+            timeout.next.prev = timeout.prev;
+            timeout.next = null;
+            timeout.prev = null;
+            timeout.bucket = null;
+        }
+
+        private boolean isEmpty() {
+            return this.root.next == this.root;
+        }
+
+        /**
+         * Set the expiration of this bucket
+         *
+         * @param expiration the expiration
+         * @return true if the expiration is changed, which means this bucket needs to be queued
+         */
+        private boolean setExpiration(final long expiration) {
+            if (this.expiration == expiration)
+                return false;
+            this.expiration = expiration;
+            return true;
+        }
+
+        private void flush(@NotNull final Consumer<Timeout<T>> consumer) {
+            this.expiration = -1;
+            if (this.isEmpty())
+                return;
+            // detach the timeouts first, so that the timeouts added to this bucket by the consumer are not flushed again
+            final Timeout<T> detached = new Timeout<>(null, 0);
+            detached.next = this.root.next;
+            detached.prev = this.root.prev;
+            detached.next.prev = detached;
+            detached.prev.next = detached;
+            this.root.next = this.root;
+            this.root.prev = this.root;
+            while (detached.next != detached) {
+                final Timeout<T> timeout = detached.next;
+                this.remove(timeout);
+                consumer.accept(timeout);
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package top.focess.command;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.function.Supplier;
+
+/**
+ * The hooks of the Java Flight Recorder events of the commands.
+ * <p>
+ * An event is only allocated when its type is enabled in a recording, so the hooks cost a volatile read when the recording is disabled.
+ * A begin hook returns the event to be passed to the end hook, or null if the event is not enabled.
+ */
+final class CommandEvents {
+
+    private static final EventType REGISTRATION = EventType.getEventType(RegistrationEvent.class);
+
+    private static final EventType LOOKUP = EventType.getEventType(LookupEvent.class);
+
+    private static final EventType MATCH = EventType.getEventType(MatchEvent.class);
+
+    private static final EventType CONVERSION = EventType.getEventType(ConversionEvent.class);
+
+    private static final EventType EXECUTION = EventType.getEventType(ExecutionEvent.class);
+
+    private static final EventType INPUT = EventType.getEventType(InputEvent.class);
+
+    private CommandEvents() {
+    }
+
+    static void registration(@NotNull final Command command, final boolean registered) {
+        if (!REGISTRATION.isEnabled())
+            return;
+        final RegistrationEvent event = new RegistrationEvent();
+        event.command = command.getName();
+        event.registered = registered;
+        event.commit();
+    }
+
+    @Nullable
+    static Object beginLookup() {
+        return begin(LOOKUP, LookupEvent::new);
+    }
+
+    static void endLookup(@Nullable final Object event, @NotNull final String name, final boolean found) {
+        if (event == null)
+            return;
+        final LookupEvent lookupEvent = (LookupEvent) event;
+        lookupEvent.name = name;
+        lookupEvent.found = found;
+        lookupEvent.commit();
+    }
+
+    @Nullable
+    static Object beginMatch() {
+        return begin(MATCH, MatchEvent::new);
+    }
+
+    static void endMatch(@Nullable final Object event, @NotNull final Command command, final int executors, final int arguments, final int executorIndex) {
+        if (event == null)
+            return;
+        final MatchEvent matchEvent = (MatchEvent) event;
+        matchEvent.command = command.getName();
+        matchEvent.executors = executors;
+        matchEvent.arguments = arguments;
+        matchEvent.executorIndex = executorIndex;
+        matchEvent.commit();
+    }
+
+    @Nullable
+    static Object beginConversion() {
+        return begin(CONVERSION, ConversionEvent::new);
+    }
+
+    static void endConversion(@Nullable final Object event, @NotNull final Command command, final int executorIndex, final int arguments, final boolean converted) {
+        if (event == null)
+            return;
+        final ConversionEvent conversionEvent = (ConversionEvent) event;
+        conversionEvent.command = command.getName();
+        conversionEvent.executorIndex = executorIndex;
+        conversionEvent.arguments = arguments;
+        conversionEvent.converted = converted;
+        conversionEvent.commit();
+    }
+
+    @Nullable
+    static Object beginExecution() {
+        return begin(EXECUTION, ExecutionEvent::new);
+    }
+
+    static void endExecution(@Nullable final Object event, @NotNull final Command command, final int executorIndex, @NotNull final CommandResult result) {
+        if (event == null)
+            return;
+        final ExecutionEvent executionEvent = (ExecutionEvent) event;
+        executionEvent.command = command.getName();
+        executionEvent.executorIndex = executorIndex;
+        executionEvent.result = result.name();
+        executionEvent.commit();
+    }
+
+    @Nullable
+    static Object beginInput() {
+        return begin(INPUT, InputEvent::new);
+    }
+
+    static void endInput(@Nullable final Object event, final boolean received) {
+        if (event == null)
+            return;
+        final InputEvent inputEvent = (InputEvent) event;
+        inputEvent.received = received;
+        inputEvent.commit();
+    }
+
+    @Nullable
+    private static Event begin(@NotNull final EventType type, @NotNull final Supplier<Event> supplier) {
+        if (!type.isEnabled())
+            return null;
+        final Event event = supplier.get();
+        event.begin();
+        return event;
+    }
+
+    @Name("top.focess.command.Registration")
+    @Label("Command Registration")
+    @Description("A command is registered or unregistered")
+    @Category("Focess Command")
+    private static final class RegistrationEvent extends Event {
+
+        @Label("Command")
+        private String command;
+
+        @Label("Registered")
+        private boolean registered;
+    }
+
+    @Name("top.focess.command.Lookup")
+    @Label("Command Lookup")
+    @Description("A command is looked up by its name or alias")
+    @Category("Focess Command")
+    private static final class LookupEvent extends Event {
+
+        @Label("Name")
+        private String name;
+
+        @Label("Found")
+        private boolean found;
+    }
+
+    @Name("top.focess.command.Match")
+    @Label("Executor Matching")
+    @Description("The executors of a command are tried until one accepts the arguments")
+    @Category("Focess Command")
+    private static final class MatchEvent extends Event {
+
+        @Label("Command")
+        private String command;
+
+        @Label("Executors Tried")
+        private int executors;
+
+        @Label("Arguments")
+        private int arguments;
+
+        @Label("Executor Index")
+        @Description("The index of the matched executor, -1 if no executor is matched")
+        private int executorIndex;
+    }
+
+    @Name("top.focess.command.Conversion")
+    @Label("Argument Conversion")
+    @Description("The arguments are checked and converted by an executor")
+    @Category("Focess Command")
+    private static final class ConversionEvent extends Event {
+
+        @Label("Command")
+        private String command;
+
+        @Label("Executor Index")
+        private int executorIndex;
+
+        @Label("Arguments")
+        private int arguments;
+
+        @Label("Converted")
+        private boolean converted;
+    }
+
+    @Name("top.focess.command.Execution")
+    @Label("Command Execution")
+    @Description("An executor of a command is executed")
+    @Category("Focess Command")
+    private static final class ExecutionEvent extends Event {
+
+        @Label("Command")
+        private String command;
+
+        @Label("Executor Index")
+        private int executorIndex;
+
+        @Label("Result")
+        private String result;
+    }
+
+    @Name("top.focess.command.Input")
+    @Label("Input Wait")
+    @Description("An execution waits for the input String")
+    @Category("Focess Command")
+    private static final class InputEvent extends Event {
+
+        @Label("Received")
+        private boolean received;
+    }
+}
@@ -0,0 +1,54 @@
+package top.focess.command;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compare {@link CommandRegistry#executeBatch(List, ForkJoinPool)} against looping over {@link CommandRegistry#execute(CommandSender, String, IOHandler)}.
+ * <p>
+ * The batch is compared with the same targets repeated in many lines, and with distinct targets in all the lines, where nothing can be shared.
+ * It is not a part of the tests, run it by <code>mvn test -Pbenchmark</code>.
+ */
+public class BatchExecutionBenchmark {
+
+    private static final int ROUNDS = 10;
+
+    private final BatchExecutionFixture fixture = new BatchExecutionFixture();
+
+    @Test
+    public void benchmark() throws Exception {
+        this.benchmark("repeated targets", BatchExecutionFixture.TARGETS);
+        this.benchmark("distinct targets", BatchExecutionFixture.LINES);
+    }
+
+    private void benchmark(final String name, final int targets) throws Exception {
+        final CommandRegistry registry = this.fixture.newRegistry();
+        final List<CommandRegistry.BatchEntry> entries = this.fixture.newEntries(targets);
+        List<CommandResult> expected = null;
+        long loop = Long.MAX_VALUE;
+        long batch = Long.MAX_VALUE;
+        long parallel = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            final long startTime = System.nanoTime();
+            final List<CommandResult> results = Lists.newArrayListWithCapacity(BatchExecutionFixture.LINES);
+            for (final CommandRegistry.BatchEntry entry : entries)
+                results.add(registry.execute(entry.getSender(), entry.getCommandLine(), entry.getIoHandler()));
+            loop = Math.min(loop, System.nanoTime() - startTime);
+            expected = results;
+
+            final long batchStartTime = System.nanoTime();
+            assertEquals(expected, registry.executeBatch(entries));
+            batch = Math.min(batch, System.nanoTime() - batchStartTime);
+
+            final long parallelStartTime = System.nanoTime();
+            assertEquals(expected, registry.executeBatch(entries, ForkJoinPool.commonPool()));
+            parallel = Math.min(parallel, System.nanoTime() - parallelStartTime);
+        }
+        System.out.printf("%d lines with %s, best of %d rounds: loop %.1f ms, batch %.1f ms, parallel batch %.1f ms%n", BatchExecutionFixture.LINES, name, ROUNDS, loop / 1e6, batch / 1e6, parallel / 1e6);
+    }
+}
@@ -0,0 +1,72 @@
+package top.focess.command;
+
+import com.google.common.collect.Lists;
+import top.focess.command.data.StringBuffer;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The commands and the command lines of a moderation job: a few commands with several executors, and the same targets repeated in many lines.
+ */
+class BatchExecutionFixture {
+
+    static final int LINES = 100_000;
+
+    static final int TARGETS = 100;
+
+    final AtomicInteger conversions = new AtomicInteger();
+
+    /**
+     * A converter which looks up a target, as costly as parsing a few numbers
+     */
+    private final DataConverter<String> targetConverter = new DataConverter<String>() {
+        @Override
+        public boolean accept(final String arg) {
+            return arg.startsWith("user") && DataConverter.INTEGER_PREDICATE.test(arg.substring(4));
+        }
+
+        @Override
+        public String convert(final String arg) {
+            BatchExecutionFixture.this.conversions.incrementAndGet();
+            return "User#" + Integer.parseInt(arg.substring(4));
+        }
+
+        @Override
+        protected Class<String> getTargetClass() {
+            return String.class;
+        }
+    };
+
+    private final CommandSender sender = new CommandSender(CommandPermission.MEMBER) {
+    };
+
+    private final IOHandler ioHandler = new IOHandler() {
+        @Override
+        public void output(final String output) {
+        }
+    };
+
+    CommandRegistry newRegistry() {
+        final CommandRegistry registry = new CommandRegistry();
+        registry.register(this.targetConverter, StringBuffer::allocate);
+        for (final String name : new String[]{"warn", "mute", "kick"})
+            registry.register(new Command(name) {
+                @Override
+                public void init() {
+                    this.addExecutor((sender, data, ioHandler) -> CommandResult.ALLOW, CommandArgument.of("list"));
+                    this.addExecutor((sender, data, ioHandler) -> CommandResult.ALLOW, CommandArgument.of("clear"), CommandArgument.of(BatchExecutionFixture.this.targetConverter));
+                    this.addExecutor((sender, data, ioHandler) -> data.get().isEmpty() ? CommandResult.REFUSE : CommandResult.ALLOW, CommandArgument.of(BatchExecutionFixture.this.targetConverter), CommandArgument.ofInt());
+                }
+            });
+        return registry;
+    }
+
+    List<CommandRegistry.BatchEntry> newEntries(final int targets) {
+        final String[] commands = {"warn", "mute", "kick"};
+        final List<CommandRegistry.BatchEntry> entries = Lists.newArrayList();
+        for (int i = 0; i < LINES; i++)
+            entries.add(new CommandRegistry.BatchEntry(this.sender, commands[i % commands.length] + " user" + (i % targets) + " " + (i % 10), this.ioHandler));
+        return entries;
+    }
+}
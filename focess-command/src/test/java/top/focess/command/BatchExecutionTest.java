@@ -0,0 +1,24 @@
+package top.focess.command;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class BatchExecutionTest {
+
+    private final BatchExecutionFixture fixture = new BatchExecutionFixture();
+
+    @Test
+    public void testBatchSharesConversions() {
+        final CommandRegistry registry = this.fixture.newRegistry();
+        final List<CommandRegistry.BatchEntry> entries = this.fixture.newEntries(BatchExecutionFixture.TARGETS);
+        this.fixture.conversions.set(0);
+        final List<CommandResult> results = registry.executeBatch(entries);
+        // each target is converted once for each of the commands
+        assertEquals(3 * BatchExecutionFixture.TARGETS, this.fixture.conversions.get());
+        for (final CommandResult result : results)
+            assertEquals(CommandResult.ALLOW, result);
+    }
+}
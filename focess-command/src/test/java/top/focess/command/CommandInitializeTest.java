@@ -0,0 +1,40 @@
+package top.focess.command;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+public class CommandInitializeTest {
+
+    @Test
+    public void testFailedInitIsNotRepeated() {
+        final AtomicInteger inits = new AtomicInteger();
+        final Command command = new Command(true, "lazy") {
+            @Override
+            public void init() {
+                inits.incrementAndGet();
+                this.addExecutor((sender, data, ioHandler) -> CommandResult.ALLOW);
+                throw new IllegalStateException("broken");
+            }
+        };
+        final CommandLoadException exception = initialize(command);
+        assertSame(exception, initialize(command));
+        assertEquals(1, inits.get());
+        assertFalse(command.isInitialized());
+    }
+
+    private static CommandLoadException initialize(final Command command) {
+        try {
+            command.initialize();
+        } catch (final CommandLoadException e) {
+            return e;
+        }
+        fail("CommandLoadException is expected");
+        return null;
+    }
+}
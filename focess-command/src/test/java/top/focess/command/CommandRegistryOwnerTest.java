@@ -0,0 +1,125 @@
+package top.focess.command;
+
+import com.google.common.io.ByteStreams;
+import org.jetbrains.annotations.NotNull;
+import org.junit.Test;
+import top.focess.command.data.ObjectBuffer;
+import top.focess.command.data.StringBuffer;
+import top.focess.command.limit.Cooldown;
+import top.focess.command.limit.RateLimiter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CommandRegistryOwnerTest {
+
+    private static final String PLUGIN_PACKAGE = "top.focess.command.plugin.";
+
+    @Test
+    public void testUnregisterOwnerReleasesClassLoader() throws Exception {
+        final CommandRegistry registry = new CommandRegistry();
+        // the limiters of the host outlive the plugin, and keep its sender until they are cleared
+        final RateLimiter rateLimiter = new RateLimiter(100, 1, TimeUnit.SECONDS, 100);
+        final Cooldown cooldown = new Cooldown(1, TimeUnit.MINUTES);
+        final WeakReference<ClassLoader> reference = enablePlugin(registry, rateLimiter, cooldown);
+        assertEquals(1, registry.getCommands().size());
+        assertEquals(1, rateLimiter.size());
+        assertEquals(1, cooldown.size());
+
+        assertEquals(1, registry.unregisterOwner(Objects.requireNonNull(reference.get())).size());
+        assertTrue(registry.getCommands().isEmpty());
+        assertEquals(0, rateLimiter.size());
+        assertEquals(0, cooldown.size());
+        awaitCollected(reference);
+    }
+
+    @Test
+    public void testRegisterWithoutOwnerReplacesOwner() {
+        final CommandRegistry registry = new CommandRegistry();
+        final Object owner = new Object();
+        final DataCollection.BufferGetter bufferGetter = StringBuffer::allocate;
+        registry.register(DataConverter.DEFAULT_DATA_CONVERTER, ObjectBuffer::allocate, owner);
+        registry.register(DataConverter.DEFAULT_DATA_CONVERTER, bufferGetter);
+        registry.unregisterOwner(owner);
+        assertSame(bufferGetter, registry.getBufferGetter(DataConverter.DEFAULT_DATA_CONVERTER));
+    }
+
+    @Test
+    public void testUnregisterOwnerKeepsOtherOwners() {
+        final CommandRegistry registry = new CommandRegistry();
+        final Object owner = new Object();
+        final Command command = new Command("other") {
+            @Override
+            public void init() {
+                this.addExecutor((sender, dataCollection, ioHandler) -> CommandResult.ALLOW);
+            }
+        };
+        registry.register(command, new Object());
+        assertTrue(registry.unregisterOwner(owner).isEmpty());
+        assertSame(command, registry.getCommand("other"));
+        registry.unregister(command);
+        assertNull(registry.getOwner(command));
+    }
+
+    /**
+     * Enable the plugin in a new class loader, without keeping the class loader reachable from the caller
+     */
+    @NotNull
+    private static WeakReference<ClassLoader> enablePlugin(@NotNull final CommandRegistry registry, @NotNull final RateLimiter rateLimiter, @NotNull final Cooldown cooldown) throws Exception {
+        final ClassLoader classLoader = new PluginClassLoader(CommandRegistryOwnerTest.class.getClassLoader());
+        final Class<?> plugin = classLoader.loadClass(PLUGIN_PACKAGE + "SamplePlugin");
+        assertSame(classLoader, plugin.getClassLoader());
+        plugin.getMethod("enable", CommandRegistry.class, Object.class, RateLimiter.class, Cooldown.class).invoke(null, registry, classLoader, rateLimiter, cooldown);
+        return new WeakReference<>(classLoader);
+    }
+
+    private static void awaitCollected(@NotNull final WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            System.gc();
+            if (reference.get() == null)
+                return;
+            Thread.sleep(50);
+        }
+        fail("The class loader of the plugin is not collected");
+    }
+
+    /**
+     * Load the classes of the plugin package by itself, and the other classes by the parent
+     */
+    private static final class PluginClassLoader extends ClassLoader {
+
+        private PluginClassLoader(@NotNull final ClassLoader parent) {
+            super(parent);
+        }
+
+        @Override
+        protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(PLUGIN_PACKAGE))
+                return super.loadClass(name, resolve);
+            synchronized (this.getClassLoadingLock(name)) {
+                Class<?> c = this.findLoadedClass(name);
+                if (c == null)
+                    try (InputStream input = this.getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+                        if (input == null)
+                            throw new ClassNotFoundException(name);
+                        final byte[] bytes = ByteStreams.toByteArray(input);
+                        c = this.defineClass(name, bytes, 0, bytes.length);
+                    } catch (final IOException e) {
+                        throw new ClassNotFoundException(name, e);
+                    }
+                if (resolve)
+                    this.resolveClass(c);
+                return c;
+            }
+        }
+    }
+}
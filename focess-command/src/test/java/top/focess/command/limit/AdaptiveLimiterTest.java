@@ -0,0 +1,117 @@
+package top.focess.command.limit;
+
+import org.junit.Test;
+import top.focess.command.Command;
+import top.focess.command.CommandArgument;
+import top.focess.command.CommandPermission;
+import top.focess.command.CommandRegistry;
+import top.focess.command.CommandResult;
+import top.focess.command.CommandSender;
+import top.focess.command.DataConverter;
+import top.focess.command.IOHandler;
+import top.focess.command.data.StringBuffer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveLimiterTest {
+
+    private final IOHandler ioHandler = new IOHandler() {
+        @Override
+        public void output(final String output) {
+        }
+    };
+
+    @Test
+    public void testAdmitRejectRelease() {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(2, 1, 2, 1, TimeUnit.MINUTES, 0.5, 0);
+        assertTrue(limiter.tryAcquire(CommandPermission.MEMBER));
+        final long startTime = System.nanoTime();
+        assertTrue(limiter.tryAcquire(CommandPermission.MEMBER));
+        assertEquals(2, limiter.getInflight());
+        assertFalse(limiter.tryAcquire(CommandPermission.OWNER));
+        assertEquals(1, limiter.getRejectedCount());
+        // a rejected execution takes no permit
+        assertEquals(2, limiter.getInflight());
+
+        limiter.release(startTime, false);
+        assertEquals(1, limiter.getInflight());
+        assertEquals(2, limiter.getLimit());
+        assertTrue(limiter.tryAcquire(CommandPermission.MEMBER));
+    }
+
+    @Test
+    public void testShedMembersFirst() {
+        // 20% of the limit is reserved for the higher permissions
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(10, 1, 10, 1, TimeUnit.MINUTES);
+        for (int i = 0; i < 8; i++)
+            assertTrue(limiter.tryAcquire(CommandPermission.MEMBER));
+        assertFalse(limiter.tryAcquire(CommandPermission.MEMBER));
+        assertTrue(limiter.tryAcquire(CommandPermission.ADMINISTRATOR));
+        assertTrue(limiter.tryAcquire(CommandPermission.OWNER));
+        assertFalse(limiter.tryAcquire(CommandPermission.OWNER));
+        assertEquals(2, limiter.getRejectedCount());
+        assertEquals(10, limiter.getInflight());
+    }
+
+    @Test
+    public void testDecreaseOnDrop() {
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(10, 2, 10, 1, TimeUnit.MINUTES, 0.5, 0);
+        assertTrue(limiter.tryAcquire(CommandPermission.MEMBER));
+        assertTrue(limiter.tryAcquire(CommandPermission.MEMBER));
+        limiter.release(System.nanoTime(), true);
+        assertEquals(5, limiter.getLimit());
+        // the second drop is in the same congestion event
+        limiter.release(System.nanoTime(), true);
+        assertEquals(5, limiter.getLimit());
+        assertEquals(0, limiter.getInflight());
+    }
+
+    @Test
+    public void testShedBeforeConversion() throws Exception {
+        final AtomicInteger conversions = new AtomicInteger();
+        final DataConverter<String> converter = new DataConverter<String>() {
+            @Override
+            public boolean accept(final String arg) {
+                return true;
+            }
+
+            @Override
+            public String convert(final String arg) {
+                conversions.incrementAndGet();
+                return arg;
+            }
+
+            @Override
+            protected Class<String> getTargetClass() {
+                return String.class;
+            }
+        };
+        final CommandRegistry registry = new CommandRegistry();
+        registry.register(converter, StringBuffer::allocate);
+        registry.register(new Command("warn") {
+            @Override
+            public void init() {
+                this.addExecutor((sender, data, ioHandler) -> CommandResult.ALLOW, CommandArgument.of(converter));
+            }
+        });
+        final AdaptiveLimiter limiter = new AdaptiveLimiter(1, 1, 1, 1, TimeUnit.MINUTES);
+        registry.setAdaptiveLimiter(limiter);
+        final CommandSender sender = new CommandSender(CommandPermission.MEMBER) {
+        };
+
+        assertTrue(limiter.tryAcquire(CommandPermission.OWNER));
+        assertEquals(CommandResult.OVERLOADED, registry.execute(sender, "warn user", this.ioHandler));
+        assertEquals(0, conversions.get());
+        assertEquals(1, limiter.getInflight());
+
+        limiter.release(System.nanoTime(), false);
+        assertEquals(CommandResult.ALLOW, registry.execute(sender, "warn user", this.ioHandler));
+        assertEquals(1, conversions.get());
+        assertEquals(0, limiter.getInflight());
+    }
+}
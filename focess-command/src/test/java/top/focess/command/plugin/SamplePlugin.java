@@ -0,0 +1,107 @@
+package top.focess.command.plugin;
+
+import org.jetbrains.annotations.NotNull;
+import top.focess.command.Command;
+import top.focess.command.CommandArgument;
+import top.focess.command.CommandPermission;
+import top.focess.command.CommandRegistry;
+import top.focess.command.CommandResult;
+import top.focess.command.CommandSender;
+import top.focess.command.DataConverter;
+import top.focess.command.IOHandler;
+import top.focess.command.data.ObjectBuffer;
+import top.focess.command.limit.Cooldown;
+import top.focess.command.limit.RateLimiter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A plugin loaded by its own class loader, which registers a command and a data converter and leaves the state of its sender in the limiters of the host
+ */
+public final class SamplePlugin {
+
+    private SamplePlugin() {
+    }
+
+    /**
+     * Register the command and the data converter of this plugin and execute the command once
+     *
+     * @param registry    the registry of the host
+     * @param owner       the owner of the command and the data converter
+     * @param rateLimiter the rate limiter of the host
+     * @param cooldown    the cooldown of the host
+     * @throws Exception if the command cannot be executed
+     */
+    public static void enable(@NotNull final CommandRegistry registry, @NotNull final Object owner, @NotNull final RateLimiter rateLimiter, @NotNull final Cooldown cooldown) throws Exception {
+        final TargetDataConverter dataConverter = new TargetDataConverter();
+        registry.register(dataConverter, ObjectBuffer::allocate, owner);
+        registry.register(new SampleCommand(dataConverter, rateLimiter, cooldown), owner);
+        if (registry.execute(new SampleSender(), "sample target", new SampleIOHandler()) != CommandResult.ALLOW)
+            throw new IllegalStateException("Sample command is not executed");
+    }
+
+    private static final class Target {
+
+        private final String name;
+
+        private Target(@NotNull final String name) {
+            this.name = name;
+        }
+    }
+
+    private static final class TargetDataConverter extends DataConverter<Target> {
+
+        @Override
+        public boolean accept(final String arg) {
+            return true;
+        }
+
+        @Override
+        public Target convert(final String arg) {
+            return new Target(arg);
+        }
+
+        @Override
+        protected Class<Target> getTargetClass() {
+            return Target.class;
+        }
+    }
+
+    private static final class SampleCommand extends Command {
+
+        private final TargetDataConverter dataConverter;
+
+        private final RateLimiter rateLimiter;
+
+        private final Cooldown cooldown;
+
+        private SampleCommand(@NotNull final TargetDataConverter dataConverter, @NotNull final RateLimiter rateLimiter, @NotNull final Cooldown cooldown) {
+            super(true, "sample");
+            this.dataConverter = dataConverter;
+            this.rateLimiter = rateLimiter;
+            this.cooldown = cooldown;
+        }
+
+        @Override
+        public void init() {
+            this.addExecutor((sender, dataCollection, ioHandler) -> {
+                ioHandler.output(dataCollection.get(Target.class).name);
+                return CommandResult.ALLOW;
+            }, CommandArgument.of(this.dataConverter)).setRateLimiter(this.rateLimiter).setCooldown(this.cooldown).setIdempotent(1, TimeUnit.MINUTES).setCoalescing(true);
+        }
+    }
+
+    private static final class SampleSender extends CommandSender {
+
+        private SampleSender() {
+            super(CommandPermission.MEMBER);
+        }
+    }
+
+    private static final class SampleIOHandler extends IOHandler {
+
+        @Override
+        public void output(final String output) {
+        }
+    }
+}
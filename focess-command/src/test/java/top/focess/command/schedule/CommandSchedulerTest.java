@@ -0,0 +1,84 @@
+package top.focess.command.schedule;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+import top.focess.command.Command;
+import top.focess.command.CommandPermission;
+import top.focess.command.CommandRegistry;
+import top.focess.command.CommandResult;
+import top.focess.command.CommandSender;
+import top.focess.command.IOHandler;
+
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CommandSchedulerTest {
+
+    private final IOHandler ioHandler = new IOHandler() {
+        @Override
+        public void output(final String output) {
+        }
+    };
+
+    private final CommandSender sender = new CommandSender(CommandPermission.MEMBER) {
+    };
+
+    @Test(timeout = 10000)
+    public void testRetryRejectedCommands() throws Exception {
+        final CommandRegistry registry = new CommandRegistry();
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final AtomicInteger count = new AtomicInteger();
+        registry.register(new Command("block") {
+            @Override
+            public void init() {
+                this.addExecutor((sender, data, ioHandler) -> {
+                    running.countDown();
+                    try {
+                        blocked.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return CommandResult.ALLOW;
+                });
+            }
+        });
+        registry.register(new Command("count") {
+            @Override
+            public void init() {
+                this.addExecutor((sender, data, ioHandler) -> {
+                    count.incrementAndGet();
+                    return CommandResult.ALLOW;
+                });
+            }
+        });
+        try (CommandScheduler scheduler = new CommandScheduler(registry, 1, 1, ZoneOffset.UTC)) {
+            scheduler.schedule(this.sender, "block", this.ioHandler, 0, TimeUnit.MILLISECONDS);
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+            // one command waits in the queue of the workers, and the others are rejected and retried after a tick
+            final List<ScheduledCommand> commands = Lists.newArrayList();
+            for (int i = 0; i < 5; i++)
+                commands.add(scheduler.schedule(this.sender, "count", this.ioHandler, 0, TimeUnit.MILLISECONDS));
+            final ScheduledCommand periodic = scheduler.scheduleAtFixedRate(this.sender, "count", this.ioHandler, 0, 1, TimeUnit.MILLISECONDS, MisfirePolicy.SKIP);
+            // the timer keeps retrying instead of flushing the same bucket forever, so the wheel is still available
+            while (periodic.getSkippedCount() < 10)
+                Thread.sleep(1);
+            assertTrue(periodic.cancel());
+            assertEquals(0, count.get());
+
+            blocked.countDown();
+            for (final ScheduledCommand command : commands)
+                while (!command.isDone())
+                    Thread.sleep(1);
+            for (final ScheduledCommand command : commands)
+                assertEquals(CommandResult.ALLOW, command.getLastResult());
+            assertTrue(count.get() >= commands.size());
+        }
+    }
+}
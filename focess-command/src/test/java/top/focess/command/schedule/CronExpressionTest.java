@@ -0,0 +1,81 @@
+package top.focess.command.schedule;
+
+import org.junit.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+public class CronExpressionTest {
+
+    private static ZonedDateTime time(final int year, final int month, final int day, final int hour, final int minute) {
+        return ZonedDateTime.of(year, month, day, hour, minute, 0, 0, ZoneOffset.UTC);
+    }
+
+    private static ZonedDateTime next(final String expression, final ZonedDateTime time) {
+        return CronExpression.parse(expression).next(time);
+    }
+
+    @Test
+    public void testNextIsStrictlyAfter() {
+        assertEquals(time(2024, 1, 2, 12, 0), next("0 12 * * *", time(2024, 1, 1, 12, 0)));
+        assertEquals(time(2024, 1, 1, 12, 0), next("0 12 * * *", time(2024, 1, 1, 11, 59).plusSeconds(30)));
+        assertEquals(time(2024, 1, 1, 0, 1), next("* * * * *", time(2024, 1, 1, 0, 0)));
+    }
+
+    @Test
+    public void testStepsAndRanges() {
+        assertEquals(time(2024, 1, 1, 10, 15), next("*/15 * * * *", time(2024, 1, 1, 10, 7)));
+        // a step from a number runs to the end of the field
+        assertEquals(time(2024, 1, 1, 11, 5), next("5/20 * * * *", time(2024, 1, 1, 10, 46)));
+        assertEquals(time(2024, 1, 1, 11, 10), next("10-30/10 * * * *", time(2024, 1, 1, 10, 31)));
+        assertEquals(time(2024, 1, 1, 18, 0), next("0 9-11,18 * * *", time(2024, 1, 1, 11, 0)));
+        assertEquals(time(2024, 1, 2, 0, 0), next("0 */6 * * *", time(2024, 1, 1, 18, 0)));
+    }
+
+    @Test
+    public void testDayOfWeek() {
+        // 2024-01-06 is a Saturday
+        assertEquals(time(2024, 1, 8, 9, 30), next("30 9 * * 1-5", time(2024, 1, 6, 10, 0)));
+        // both 0 and 7 are Sunday
+        assertEquals(time(2024, 1, 7, 0, 0), next("0 0 * * 7", time(2024, 1, 1, 0, 0)));
+        assertEquals(time(2024, 1, 7, 0, 0), next("0 0 * * 0", time(2024, 1, 1, 0, 0)));
+    }
+
+    @Test
+    public void testDayOfMonthOrDayOfWeek() {
+        // when both are restricted, a day matching either of them is matched: 2024-01-05 is a Friday, and 2024-01-13 is a Saturday
+        assertEquals(time(2024, 1, 5, 0, 0), next("0 0 13 * 5", time(2024, 1, 1, 0, 0)));
+        assertEquals(time(2024, 1, 13, 0, 0), next("0 0 13 * 5", time(2024, 1, 12, 0, 0)));
+        // when only one is restricted, the other one does not match every day
+        assertEquals(time(2024, 2, 13, 0, 0), next("0 0 13 * *", time(2024, 1, 13, 0, 0)));
+    }
+
+    @Test
+    public void testMonthAndYearRollover() {
+        assertEquals(time(2025, 1, 1, 0, 0), next("0 0 1 1 *", time(2024, 12, 31, 23, 59)));
+        assertEquals(time(2024, 2, 1, 0, 0), next("0 0 1 * *", time(2024, 1, 31, 23, 59)));
+        // the months without the day are skipped
+        assertEquals(time(2024, 3, 31, 0, 0), next("0 0 31 * *", time(2024, 1, 31, 0, 0)));
+        assertEquals(time(2024, 7, 1, 0, 0), next("0 0 1 1,7 *", time(2024, 1, 1, 0, 0)));
+        assertEquals(time(2028, 2, 29, 0, 0), next("0 0 29 2 *", time(2024, 3, 1, 0, 0)));
+    }
+
+    @Test
+    public void testNoMatchedTime() {
+        assertNull(next("0 0 30 2 *", time(2024, 1, 1, 0, 0)));
+    }
+
+    @Test
+    public void testInvalidExpressions() {
+        for (final String expression : new String[]{"* * * *", "* * * * * *", "60 * * * *", "* 24 * * *", "* * 0 * *", "* * * 13 *", "* * * * 8", "5-1 * * * *", "*/0 * * * *", "1-2-3 * * * *", "*/2/3 * * * *", "a * * * *"})
+            try {
+                CronExpression.parse(expression);
+                fail("Cron expression " + expression + " is invalid");
+            } catch (final IllegalArgumentException ignored) {
+            }
+    }
+}
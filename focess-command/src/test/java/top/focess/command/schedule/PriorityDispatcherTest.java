@@ -0,0 +1,87 @@
+package top.focess.command.schedule;
+
+import org.junit.Test;
+import top.focess.command.Command;
+import top.focess.command.CommandArgument;
+import top.focess.command.CommandLoadException;
+import top.focess.command.CommandPermission;
+import top.focess.command.CommandRegistry;
+import top.focess.command.CommandResult;
+import top.focess.command.CommandSender;
+import top.focess.command.IOHandler;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PriorityDispatcherTest {
+
+    private final IOHandler ioHandler = new IOHandler() {
+        @Override
+        public void output(final String output) {
+        }
+    };
+
+    private final CommandSender administrator = new CommandSender(CommandPermission.ADMINISTRATOR) {
+    };
+
+    @Test
+    public void testSubmitDoesNotInitialize() throws Exception {
+        final CommandRegistry registry = new CommandRegistry();
+        final CountDownLatch running = new CountDownLatch(1);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        registry.register(new Command("block") {
+            @Override
+            public void init() {
+                this.addExecutor((sender, data, ioHandler) -> {
+                    running.countDown();
+                    try {
+                        blocked.await();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return CommandResult.ALLOW;
+                });
+            }
+        });
+        final Command lazy = new Command(true, "lazy") {
+            @Override
+            public void init() {
+                throw new IllegalStateException("broken");
+            }
+        };
+        registry.register(lazy);
+        final Command kick = new Command("kick") {
+            @Override
+            public void init() {
+                this.addExecutor((sender, data, ioHandler) -> CommandResult.ALLOW, CommandArgument.ofString()).setPermission(CommandPermission.ADMINISTRATOR);
+            }
+        };
+        registry.register(kick);
+        try (PriorityDispatcher dispatcher = new PriorityDispatcher(registry, 1, 16)) {
+            final CompletableFuture<CommandResult> block = dispatcher.submit(this.administrator, "block", this.ioHandler);
+            assertTrue(running.await(1, TimeUnit.SECONDS));
+            final CompletableFuture<CommandResult> broken = dispatcher.submit(this.administrator, "lazy", this.ioHandler);
+            final CompletableFuture<CommandResult> kicked = dispatcher.submit(this.administrator, "kick bob", this.ioHandler);
+            // the lane is chosen without initializing the command or matching the arguments
+            assertFalse(lazy.isInitialized());
+            assertEquals(1, dispatcher.getQueueSize(CommandPermission.MEMBER));
+            assertEquals(1, dispatcher.getQueueSize(CommandPermission.ADMINISTRATOR));
+            blocked.countDown();
+            assertEquals(CommandResult.ALLOW, block.get(1, TimeUnit.SECONDS));
+            assertEquals(CommandResult.ALLOW, kicked.get(1, TimeUnit.SECONDS));
+            try {
+                broken.get(1, TimeUnit.SECONDS);
+                fail("CommandLoadException is expected");
+            } catch (final ExecutionException e) {
+                assertTrue(e.getCause() instanceof CommandLoadException);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package top.focess.command.schedule;
+
+import com.google.common.collect.Lists;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelTest {
+
+    private static final long TICK = 10;
+
+    private static final int WHEEL_SIZE = 8;
+
+    private static TimingWheel<Long> newWheel() {
+        return new TimingWheel<>(TICK, TimeUnit.NANOSECONDS, WHEEL_SIZE, 0);
+    }
+
+    @Test
+    public void testExpireInTheLowestLevel() {
+        final TimingWheel<Long> wheel = newWheel();
+        wheel.add(15L, 15);
+        wheel.add(42L, 42);
+        final List<Long> expired = Lists.newArrayList();
+        // a bucket of the lowest level expires at the end of its tick
+        assertEquals(20, wheel.getNextExpiration());
+        wheel.advance(19, expired::add);
+        assertTrue(expired.isEmpty());
+        wheel.advance(20, expired::add);
+        assertEquals(Lists.newArrayList(15L), expired);
+        assertEquals(50, wheel.getNextExpiration());
+        wheel.advance(50, expired::add);
+        assertEquals(Lists.newArrayList(15L, 42L), expired);
+        assertEquals(0, wheel.size());
+        assertEquals(Long.MAX_VALUE, wheel.getNextExpiration());
+    }
+
+    @Test
+    public void testCascadeFromOverflowLevels() {
+        // the levels span 80, 640 and 5120 nanos
+        final TimingWheel<Long> wheel = newWheel();
+        final long[] deadlines = {79, 80, 639, 640, 700, 5119, 5120, 40000};
+        for (final long deadline : deadlines)
+            wheel.add(deadline, deadline);
+        // a timer waits until the next expiration, the timeouts fall down to the finer levels and expire at the end of their ticks
+        final List<Long> expired = Lists.newArrayList();
+        while (wheel.size() > 0) {
+            final long now = wheel.getNextExpiration();
+            wheel.advance(now, deadline -> {
+                assertTrue(deadline + " expired early at " + now, deadline <= now);
+                assertTrue(deadline + " expired late at " + now, now <= (deadline / TICK + 1) * TICK);
+                expired.add(deadline);
+            });
+        }
+        assertEquals(deadlines.length, expired.size());
+        for (int i = 0; i < deadlines.length; i++)
+            assertEquals(deadlines[i], (long) expired.get(i));
+    }
+
+    @Test
+    public void testRandomAdvances() {
+        final Random random = new Random(29);
+        final TimingWheel<Long> wheel = newWheel();
+        long now = 0;
+        int pending = 0;
+        for (int round = 0; round < 10000; round++) {
+            if (random.nextBoolean()) {
+                // the far deadlines go to the overflow levels, and the close ones may fall into a bucket which is being flushed
+                final long deadline = now + (random.nextInt(4) == 0 ? random.nextInt(100000) : random.nextInt(100));
+                wheel.add(deadline, deadline);
+                pending++;
+            }
+            now += random.nextInt(3 * (int) TICK);
+            final long time = now;
+            final int[] count = {0};
+            wheel.advance(time, deadline -> {
+                assertTrue(deadline + " expired early at " + time, deadline <= time);
+                count[0]++;
+            });
+            pending -= count[0];
+            assertEquals(pending, wheel.size());
+            // every timeout due now is expired by this advance
+            assertTrue(wheel.getNextExpiration() > now);
+        }
+        wheel.advance(now + 100000 + TICK, deadline -> {
+        });
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    public void testAddExpired() {
+        final TimingWheel<Long> wheel = newWheel();
+        wheel.advance(100, deadline -> {
+        });
+        wheel.add(50L, 50);
+        assertEquals(Long.MIN_VALUE, wheel.getNextExpiration());
+        final List<Long> expired = Lists.newArrayList();
+        wheel.advance(100, expired::add);
+        assertEquals(Lists.newArrayList(50L), expired);
+    }
+
+    @Test
+    public void testCancel() {
+        final TimingWheel<Long> wheel = newWheel();
+        final TimingWheel.Timeout<Long> timeout = wheel.add(1000L, 1000);
+        wheel.add(1001L, 1001);
+        assertTrue(wheel.cancel(timeout));
+        assertFalse(wheel.cancel(timeout));
+        assertEquals(1, wheel.size());
+        final List<Long> expired = Lists.newArrayList();
+        wheel.advance(2000, expired::add);
+        assertEquals(Lists.newArrayList(1001L), expired);
+    }
+
+    @Test
+    public void testAddFromTheConsumer() {
+        // like a rejected command retried from the consumer, the timeout added into the bucket being flushed is not flushed again by the same advance
+        final TimingWheel<Long> wheel = newWheel();
+        wheel.add(0L, 5);
+        final List<Long> expired = Lists.newArrayList();
+        wheel.advance(10, value -> {
+            expired.add(value);
+            if (value < 3)
+                wheel.add(value + 1, 9);
+        });
+        assertEquals(Lists.newArrayList(0L), expired);
+        assertEquals(1, wheel.size());
+        wheel.advance(10, value -> {
+            expired.add(value);
+            if (value < 3)
+                wheel.add(value + 1, 10);
+        });
+        assertEquals(Lists.newArrayList(0L, 1L), expired);
+        wheel.advance(20, expired::add);
+        assertEquals(Lists.newArrayList(0L, 1L, 2L), expired);
+        assertEquals(0, wheel.size());
+    }
+}